@@ -0,0 +1,49 @@
+package com.nps.devassessment.controller;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   SmileMessageConverter.java
+ *
+ * Purpose  : Message converter for Smile, the binary form of JSON, chosen
+ *            by content negotiation: a client sending
+ *            'Accept: application/x-jackson-smile' receives any response
+ *            body in Smile, and may send request bodies in it.
+ *
+ *            Property names and short string values (workflow_state,
+ *            process, task_status, created_by and the like) are written
+ *            once per response and then referenced, so low cardinality
+ *            columns cost a byte or two per record. Timestamps are written
+ *            as epoch milliseconds.
+ *
+ *            Registered as a bean, it replaces the default Smile converter
+ *            of Spring MVC.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+public class SmileMessageConverter extends MappingJackson2SmileHttpMessageConverter
+{
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+
+    SmileMessageConverter()
+    {
+        super(Jackson2ObjectMapperBuilder.smile()
+                        .factory(new SmileFactory().enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES))
+                        .featuresToEnable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                        .build());
+    }
+}
@@ -60,7 +60,7 @@ public class TestsController
     public ResponseEntity<List<WorkflowEntity>> findWorkFlowEntity(
                     @RequestParam(required = false) String name)
     {
-        return ResponseEntity.ok(workflowRepo.executeQuery(name));
+        return ResponseEntity.ok(workflowRepoService.selectWorkflowQuery(name));
     }
 
     
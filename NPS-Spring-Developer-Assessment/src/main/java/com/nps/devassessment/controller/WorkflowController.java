@@ -1,25 +1,56 @@
 package com.nps.devassessment.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
+import javax.persistence.QueryTimeoutException;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.ResponseEntity.BodyBuilder;
-import org.springframework.http.ResponseEntity.HeadersBuilder;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.exception.PlacementUnavailableException;
+import com.nps.devassessment.exception.QueryRejectedException;
+import com.nps.devassessment.model.WorkflowCounts;
+import com.nps.devassessment.model.WorkflowFilter;
+import com.nps.devassessment.model.WorkflowPlacement;
+import com.nps.devassessment.model.WorkflowProjection;
+import com.nps.devassessment.model.WorkflowSlice;
+import com.nps.devassessment.model.WorkflowWriteResult;
+import com.nps.devassessment.model.placement;
+import com.nps.devassessment.service.PlacementFacade;
+import com.nps.devassessment.service.WorkflowPlacementService;
 import com.nps.devassessment.service.WorkflowRepoService;
 
 /**
@@ -39,24 +70,82 @@ import com.nps.devassessment.service.WorkflowRepoService;
 @RequestMapping("/workflowentity")
 public class WorkflowController 
 {
+    /**
+     * Response header carrying the cursor of the next keyset slice.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    
+    /**
+     * Newline delimited JSON - one work flow entity per line.
+     */
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    
     @Autowired
     WorkflowRepoService workflowRepoService;
+    
+    @Autowired
+    ObjectMapper objectMapper;
+    
+    @Autowired
+    PlacementFacade placementFacade;
+    
+    @Autowired
+    WorkflowPlacementService workflowPlacementService;
  
     /**
-     * Method to page a collection of work flow entity record.
+     * Method to page a collection of work flow entity record. When a cursor
+     * ('after') or 'limit' is supplied the records are read by keyset
+     * paging and the cursor of the next slice is returned in the
+     * X-Next-Cursor header (absent on the last slice).
      * 
      * @param pageNo - page number of records to be retrieved.
+     * @param pageSize - size of the page.
+     * @param sortBy - sort by column.
+     * @param after - keyset cursor returned with the previous slice.
+     * @param limit - keyset slice size.
      * @return page or record to be retrieved.
      */
     @GetMapping
     public ResponseEntity<List<WorkflowEntity>> findAllPage(
                         @RequestParam(defaultValue = "0") Integer pageNo, 
                         @RequestParam(defaultValue = "10") Integer pageSize,
-                        @RequestParam(defaultValue = "id") String sortBy) 
+                        @RequestParam(defaultValue = "id") String sortBy,
+                        @RequestParam(required = false) String after,
+                        @RequestParam(required = false) Integer limit) 
     {
-        List<WorkflowEntity> list = this.workflowRepoService.findAll(pageNo, pageSize, sortBy);
+        HttpHeaders headers = new HttpHeaders();
+        
+        List<WorkflowEntity> list;
+        
+        // Keyset (seek) paging - no OFFSET scan and no COUNT query.
+        if ((after != null) || (limit != null))
+        {
+            WorkflowSlice slice;
+            
+            try
+            {
+                slice = this.workflowRepoService.findAllAfter(after, 
+                                (limit != null) ? limit : pageSize, sortBy);
+            }
+            catch (IllegalArgumentException e)
+            {
+                return ResponseEntity.badRequest().build();
+            }
+            
+            if (slice.getNextCursor() != null)
+            {
+                headers.set(NEXT_CURSOR_HEADER, slice.getNextCursor());
+            }
+            
+            list = slice.getContent();
+        }
+        // Otherwise page by page number.
+        else
+        {
+            list = this.workflowRepoService.findAll(pageNo, pageSize, sortBy);
+        }
     
-        return new ResponseEntity<List<WorkflowEntity>>(list, new HttpHeaders(), HttpStatus.OK); 
+        return new ResponseEntity<List<WorkflowEntity>>(list, headers, HttpStatus.OK); 
     }
     
     
@@ -70,32 +159,599 @@ public class WorkflowController
     {
         return this.workflowRepoService.findAll();
     }
+    
+    
+    /**
+     * Method to export all work flow entity records as newline delimited
+     * JSON. Records are written as they are read from the database, so
+     * the first bytes are returned immediately and memory use does not
+     * depend on the size of the table.
+     * 
+     * @return stream of all work flow records.
+     */
+    @GetMapping(value = "/export", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAll()
+    {
+        ObjectWriter writer = this.objectMapper.writerFor(WorkflowEntity.class);
+        
+        StreamingResponseBody body = outputStream -> {
+            
+            // Write each record followed by a new line as it arrives.
+            this.workflowRepoService.streamAll(workflowEntity -> {
+                try
+                {
+                    outputStream.write(writer.writeValueAsBytes(workflowEntity));
+                    outputStream.write('\n');
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            
+            outputStream.flush();
+        };
+        
+        return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                        .body(body);
+    }
 
     
    /**
-    * Method to retrieve work flow entity record by id.
+    * Method to retrieve work flow entity record by id. The response
+    * carries a strong ETag of the record version; a request whose
+    * If-None-Match names the current version is answered not modified
+    * from a version-only query, without loading the record.
     * 
     * @param workflowId - work flow entity id.
-    * @return work flow record returned.
+    * @param ifNoneMatch - entity tags held by the client, if any.
+    * @return work flow record returned; not modified if the client copy
+    *         is current, not found if the record does not exist.
     */
-    @RequestMapping(value = "/find/{id}")
-    public WorkflowEntity findById(@PathVariable(value = "id") Long id)
+    @RequestMapping(value = "/find/{id:\\d+}")
+    public ResponseEntity<WorkflowEntity> findById(@PathVariable(value = "id") Long id,
+                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
     {
-        return this.workflowRepoService.findWorkflowById(id);
+        // Check the client copy first - by version only.
+        if (ifNoneMatch != null)
+        {
+            Long version = this.workflowRepoService.findWorkflowVersion(id);
+            
+            // No work flow - not found.
+            if (version == null)
+            {
+                return ResponseEntity.notFound().build();
+            }
+            
+            String eTag = workflowETag(id, version);
+            
+            if (matches(ifNoneMatch, eTag))
+            {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        
+        WorkflowEntity workflowEntity = this.workflowRepoService.findWorkflowById(id);
+        
+        // No work flow - not found.
+        if (workflowEntity == null)
+        {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Tag the version that was loaded, not the one that was checked.
+        return ResponseEntity.ok()
+                        .eTag(workflowETag(workflowEntity.getId(), workflowEntity.getVersion()))
+                        .body(workflowEntity);
     }
 
     
     /**
-     * Perform ad hoc work entity list query.
+     * Method to retrieve the placement of a work flow entity record from
+     * the placements service. The request is completed asynchronously, so
+     * no servlet thread waits on the remote call.
+     * 
+     * @param id - work flow entity id.
+     * @return placement; not found if the work flow or its placement does
+     *         not exist, gateway time out or service unavailable if the
+     *         placements service cannot answer.
+     */
+    @GetMapping("/placement/{id}")
+    public CompletableFuture<ResponseEntity<placement>> findPlacement(@PathVariable("id") Long id)
+    {
+        WorkflowEntity workflowEntity = this.workflowRepoService.findWorkflowById(id);
+        
+        // No work flow - not found.
+        if (workflowEntity == null)
+        {
+            return CompletableFuture.completedFuture(ResponseEntity.notFound().build());
+        }
+        
+        return this.placementFacade.findPlacement(workflowEntity.getId(), workflowEntity.getYjbYp())
+                        .<ResponseEntity<placement>>handle((found, e) -> {
+                            
+                            if (e != null)
+                            {
+                                return placementFailure(e);
+                            }
+                            
+                            // No placement for the work flow - not found.
+                            if (found == null)
+                            {
+                                return ResponseEntity.notFound().build();
+                            }
+                            
+                            return ResponseEntity.ok(found);
+                        });
+    }
+    
+    
+    /**
+     * Map a failed placement lookup to its response status.
+     */
+    private static <T> ResponseEntity<T> placementFailure(Throwable e)
+    {
+        Throwable cause = (e instanceof CompletionException) && (e.getCause() != null) ? e.getCause() : e;
+        
+        if ((cause instanceof PlacementUnavailableException) && (((PlacementUnavailableException) cause).isTimedOut()))
+        {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+    
+    
+    /**
+     * Method to retrieve the work flow entity records of a young person.
      * 
-     * @param name - defined query.
+     * @param yjbYpId - yjb_yp_id of the young person.
+     * @return work flow records, or not found if the young person has none.
+     */
+    @GetMapping("/byYp/{yjbYpId}")
+    public ResponseEntity<List<WorkflowEntity>> findByYjbYp(@PathVariable("yjbYpId") Long yjbYpId,
+                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch)
+    {
+        // Check the client copy first - by ids and versions only.
+        if (ifNoneMatch != null)
+        {
+            Map<Long, Long> mapVersion = this.workflowRepoService.findWorkflowVersionsByYjbYp(yjbYpId);
+            
+            // No workflows for the young person - not found.
+            if (mapVersion.isEmpty())
+            {
+                return ResponseEntity.notFound().build();
+            }
+            
+            String eTag = listETag(mapVersion);
+            
+            if (matches(ifNoneMatch, eTag))
+            {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+        }
+        
+        List<WorkflowEntity> list = this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId);
+        
+        // No workflows for the young person - not found.
+        if (list.isEmpty())
+        {
+            return ResponseEntity.notFound().build();
+        }
+        
+        // Tag the versions that were loaded.
+        Map<Long, Long> mapVersion = new TreeMap<>();
+        
+        for (WorkflowEntity workflowEntity : list)
+        {
+            mapVersion.put(workflowEntity.getId(), workflowEntity.getVersion());
+        }
+        
+        return ResponseEntity.ok().eTag(listETag(mapVersion)).body(list);
+    }
+    
+    
+    /**
+     * Strong entity tag of one version of a work flow record.
+     */
+    private static String workflowETag(Long id, Long version)
+    {
+        return "\"" + id + "-" + version + "\"";
+    }
+    
+    
+    /**
+     * Strong entity tag of a list of work flow records - a digest of the
+     * ids and versions of the records, in id order, so that any write,
+     * insert or delete in the list changes it.
+     */
+    private static String listETag(Map<Long, Long> mapVersion)
+    {
+        MessageDigest digest;
+        
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException(e);
+        }
+        
+        for (Map.Entry<Long, Long> entry : new TreeMap<>(mapVersion).entrySet())
+        {
+            digest.update((entry.getKey() + ":" + entry.getValue() + ";").getBytes(StandardCharsets.US_ASCII));
+        }
+        
+        byte[] hash = digest.digest();
+        
+        // Return result
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + "\"";
+    }
+    
+    
+    /**
+     * Whether an If-None-Match header names the entity tag - weak
+     * comparison, as RFC 7232 requires for If-None-Match.
+     */
+    private static boolean matches(String ifNoneMatch, String eTag)
+    {
+        for (String candidate : ifNoneMatch.split(","))
+        {
+            String tag = candidate.trim();
+            
+            if (tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag))
+            {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    
+    /**
+     * Method to retrieve the work flow entity records of a young person,
+     * each with its placement, in one request. Placement lookups that fail
+     * or time out are reported in the placementStatus of each record.
+     * 
+     * @param yjbYpId - yjb_yp_id of the young person.
+     * @return enriched work flow records, or not found if the young person
+     *         has none.
+     */
+    @GetMapping("/byYp/{yjbYpId}/placements")
+    public CompletableFuture<ResponseEntity<List<WorkflowPlacement>>> findPlacementsByYjbYp(
+                    @PathVariable("yjbYpId") Long yjbYpId)
+    {
+        return this.workflowPlacementService.findWorkflowPlacementsByYjbYp(yjbYpId)
+                        .thenApply(list -> list.isEmpty() 
+                                        ? ResponseEntity.notFound().<List<WorkflowPlacement>>build() 
+                                        : ResponseEntity.ok(list));
+    }
+    
+    
+    /**
+     * Method to retrieve work flow entity records by workflow state.
+     * 
+     * @param workflowState - workflow_state value.
+     * @return work flow records.
+     */
+    @GetMapping("/byState/{workflowState}")
+    public ResponseEntity<List<WorkflowEntity>> findByState(
+                    @PathVariable("workflowState") String workflowState)
+    {
+        return ResponseEntity.ok(this.workflowRepoService.findWorkflowsByState(workflowState));
+    }
+    
+    
+    /**
+     * Method to retrieve work flow entity records by process and,
+     * optionally, task status.
+     * 
+     * @param process - process value.
+     * @param taskStatus - task_status value.
+     * @return work flow records.
+     */
+    @GetMapping("/byProcess/{process}")
+    public ResponseEntity<List<WorkflowEntity>> findByProcess(
+                    @PathVariable("process") String process,
+                    @RequestParam(required = false) String taskStatus)
+    {
+        return ResponseEntity.ok(this.workflowRepoService.findWorkflowsByProcess(process, taskStatus));
+    }
+    
+    
+    /**
+     * Method to retrieve work flow entity records by task status.
+     * 
+     * @param taskStatus - task_status value.
+     * @return work flow records.
+     */
+    @GetMapping("/byTaskStatus/{taskStatus}")
+    public ResponseEntity<List<WorkflowEntity>> findByTaskStatus(
+                    @PathVariable("taskStatus") String taskStatus)
+    {
+        return ResponseEntity.ok(this.workflowRepoService.findWorkflowsByTaskStatus(taskStatus));
+    }
+
+    
+    /**
+     * Get work flow entity counts by workflow state, process and task
+     * status. Served from memory; 'stale' is set while the counts await
+     * reconciliation with the table.
+     * 
+     * @return the work flow counts.
+     */
+    @GetMapping("/counts")
+    public ResponseEntity<WorkflowCounts> countWorkflows()
+    {
+        return ResponseEntity.ok(this.workflowRepoService.countWorkflows());
+    }
+
+    
+    /**
+     * Perform ad hoc work entity list query. The query runs on the query
+     * pool and is cancelled if the request fails - the client disconnects -
+     * or times out.
+     * 
+     * @param strQuery - WHERE clause of the query; never all digits, which
+     *        is a work flow id.
+     * @return the list of work flow entity; bad request if the clause is
+     *         not valid, unprocessable if the query is too expensive or
+     *         returns too many rows, service unavailable if it must wait too
+     *         long to run, gateway time out if it runs too long.
+     */
+    @RequestMapping(value = "/find/{strQuery:.*\\D.*}")
+    public DeferredResult<ResponseEntity<List<WorkflowEntity>>> findWorkflowByQuery(
+                    @PathVariable(value = "strQuery") String strQuery)
+    {
+        DeferredResult<ResponseEntity<List<WorkflowEntity>>> result = new DeferredResult<>();
+        
+        CompletableFuture<List<WorkflowEntity>> query;
+        
+        try
+        {
+            query = this.workflowRepoService.selectWorkflowQueryAsync(strQuery);
+        }
+        catch (IllegalArgumentException e)
+        {
+            result.setResult(ResponseEntity.badRequest().build());
+            
+            return result;
+        }
+        
+        // Nobody is waiting for the result any more - stop the query.
+        result.onError(e -> query.cancel(true));
+        result.onTimeout(() -> query.cancel(true));
+        
+        query.whenComplete((lstWorkflow, e) -> {
+            
+            if (e != null)
+            {
+                result.setErrorResult(queryFailure(e));
+            }
+            else
+            {
+                result.setResult(ResponseEntity.ok(lstWorkflow));
+            }
+        });
+        
+        return result;
+    }
+    
+    
+    /**
+     * Map a failed ad hoc query to its response, or to the failure itself
+     * for the default error handling.
+     */
+    private static Object queryFailure(Throwable e)
+    {
+        Throwable cause = (e instanceof CompletionException) && (e.getCause() != null) ? e.getCause() : e;
+        
+        if (cause instanceof QueryRejectedException)
+        {
+            return ResponseEntity.status(((QueryRejectedException) cause).isRetryable()
+                            ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.UNPROCESSABLE_ENTITY).build();
+        }
+        
+        if (cause instanceof QueryTimeoutException)
+        {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).build();
+        }
+        
+        return cause;
+    }
+    
+    
+    /**
+     * Perform structured work flow entity list query.
+     * 
+     * @param workflowFilter - filter criteria, combined with AND.
      * @return the list of work flow entity.
      */
-    @RequestMapping(value = "/find/{strQuery}")
-    public List<WorkflowEntity> findWorkflowByQuery(
-                    @PathVariable(value = "strquery") String strQuery)
+    @PostMapping("/find/filter")
+    public ResponseEntity<List<WorkflowEntity>> findWorkflowByFilter(
+                    @RequestBody WorkflowFilter workflowFilter)
+    {
+        try
+        {
+            return ResponseEntity.ok(this.workflowRepoService.findWorkflowByFilter(workflowFilter));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    
+    /**
+     * Method to page selected fields of the work flow entity records. The
+     * sparse field set variants of the list endpoints are chosen by a
+     * 'fields' parameter naming the properties to return, e.g.
+     * ?fields=id,yjbYp,workflowState - only those columns are read, and
+     * each record is returned as an object of those fields.
+     * 
+     * @param pageNo - page number of records to be retrieved.
+     * @param pageSize - size of the page.
+     * @param sortBy - sort by property.
+     * @param fields - properties to return.
+     * @param after - keyset cursor, not supported with fields.
+     * @param limit - keyset slice size, not supported with fields.
+     * @return page of records; bad request for an unknown property or
+     *         keyset paging.
+     */
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findAllPageFields(
+                        @RequestParam(defaultValue = "0") Integer pageNo, 
+                        @RequestParam(defaultValue = "10") Integer pageSize,
+                        @RequestParam(defaultValue = "id") String sortBy,
+                        @RequestParam("fields") List<String> fields,
+                        @RequestParam(required = false) String after,
+                        @RequestParam(required = false) Integer limit)
+    {
+        // Check that keyset paging is not requested.
+        if ((after != null) || (limit != null))
+        {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return findFields(null, fields, sortBy, pageNo, pageSize);
+    }
+    
+    
+    /**
+     * Method to retrieve selected fields of all work flow entity records.
+     * 
+     * @param fields - properties to return.
+     * @return all records.
+     */
+    @RequestMapping(value = "/find/All", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findAllFields(@RequestParam("fields") List<String> fields)
+    {
+        return findFields(null, fields, null, null, null);
+    }
+    
+    
+    /**
+     * Method to retrieve selected fields of the records of a young person,
+     * in creation order.
+     * 
+     * @param yjbYpId - yjb_yp_id of the young person.
+     * @param fields - properties to return.
+     * @return records, or not found if the young person has none.
+     */
+    @GetMapping(value = "/byYp/{yjbYpId}", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findByYjbYpFields(@PathVariable("yjbYpId") Long yjbYpId,
+                    @RequestParam("fields") List<String> fields)
+    {
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setYjbYpIds(Collections.singletonList(yjbYpId));
+        
+        ResponseEntity<List<WorkflowProjection>> response = findFields(filter, fields, "created", null, null);
+        
+        // No workflows for the young person - not found.
+        if ((response.getBody() != null) && response.getBody().isEmpty())
+        {
+            return ResponseEntity.notFound().build();
+        }
+        
+        return response;
+    }
+    
+    
+    /**
+     * Method to retrieve selected fields of records by workflow state.
+     * 
+     * @param workflowState - workflow_state value.
+     * @param fields - properties to return.
+     * @return records.
+     */
+    @GetMapping(value = "/byState/{workflowState}", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findByStateFields(
+                    @PathVariable("workflowState") String workflowState,
+                    @RequestParam("fields") List<String> fields)
+    {
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setWorkflowStates(Collections.singletonList(workflowState));
+        
+        return findFields(filter, fields, null, null, null);
+    }
+    
+    
+    /**
+     * Method to retrieve selected fields of records by process and,
+     * optionally, task status.
+     * 
+     * @param process - process value.
+     * @param taskStatus - task_status value.
+     * @param fields - properties to return.
+     * @return records.
+     */
+    @GetMapping(value = "/byProcess/{process}", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findByProcessFields(
+                    @PathVariable("process") String process,
+                    @RequestParam(required = false) String taskStatus,
+                    @RequestParam("fields") List<String> fields)
     {
-        return this.workflowRepoService.selectWorkflowQuery(strQuery);
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setProcesses(Collections.singletonList(process));
+        
+        if (taskStatus != null)
+        {
+            filter.setTaskStatuses(Collections.singletonList(taskStatus));
+        }
+        
+        return findFields(filter, fields, null, null, null);
+    }
+    
+    
+    /**
+     * Method to retrieve selected fields of records by task status.
+     * 
+     * @param taskStatus - task_status value.
+     * @param fields - properties to return.
+     * @return records.
+     */
+    @GetMapping(value = "/byTaskStatus/{taskStatus}", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findByTaskStatusFields(
+                    @PathVariable("taskStatus") String taskStatus,
+                    @RequestParam("fields") List<String> fields)
+    {
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setTaskStatuses(Collections.singletonList(taskStatus));
+        
+        return findFields(filter, fields, null, null, null);
+    }
+    
+    
+    /**
+     * Perform structured work flow entity list query for selected fields.
+     * 
+     * @param workflowFilter - filter criteria, combined with AND.
+     * @param fields - properties to return.
+     * @return records.
+     */
+    @PostMapping(value = "/find/filter", params = "fields")
+    public ResponseEntity<List<WorkflowProjection>> findWorkflowByFilterFields(
+                    @RequestBody WorkflowFilter workflowFilter,
+                    @RequestParam("fields") List<String> fields)
+    {
+        return findFields(workflowFilter, fields, null, null, null);
+    }
+    
+    
+    private ResponseEntity<List<WorkflowProjection>> findFields(WorkflowFilter filter, List<String> fields,
+                    String sortBy, Integer pageNo, Integer pageSize)
+    {
+        try
+        {
+            return ResponseEntity.ok(this.workflowRepoService.findWorkflowFields(filter, fields, sortBy, pageNo, pageSize));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
 
@@ -103,60 +759,90 @@ public class WorkflowController
      * Method to create the work flow entity record.
      * 
      * @param workflowEntity - work flow entity to be created.
-     * @return work flow entity create response.
+     * @return work flow entity create response - conflict if the id exists.
      */
-    @SuppressWarnings("unchecked")
     @PostMapping("/workflowentity/create")
     public ResponseEntity<WorkflowEntity> createWorkflowEntity(
                     @RequestBody WorkflowEntity workflowEntity)
     {
-        return ((HeadersBuilder<BodyBuilder>) ResponseEntity.ok(this.workflowRepoService.createWorkflow(workflowEntity))).build();
+        // No id - the record cannot be keyed.
+        if (workflowEntity.getId() == null)
+        {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        WorkflowEntity createdEntity = this.workflowRepoService.createWorkflow(workflowEntity);
+        
+        // The id is already taken.
+        if (createdEntity == null)
+        {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        return ResponseEntity.ok(createdEntity);
     }
 
     /**
      * Method to update the work flow entity record by id.
      * 
      * @param workflowEntityId - work flow entity id to be updated.
+     * @return work flow entity update response - not found if the id does
+     *         not exist.
      */
-    @SuppressWarnings("unchecked")
     @PatchMapping("/workflowentity/update/{workflowentityid}")
-    public ResponseEntity<? extends WorkflowEntity> updateWorkflowById(
+    public ResponseEntity<WorkflowEntity> updateWorkflowById(
                     @PathVariable("workflowentityid") long workflowentityId,
                     @RequestBody WorkflowEntity workflowEntity)
     {
-        WorkflowEntity workflowEntityCheck = this.workflowRepoService.findWorkflowById(workflowentityId);
+        // Update the record at the path id - not at any id in the body.
+        workflowEntity.setId(workflowentityId);
         
-        this.workflowRepoService.updateWorkflow(workflowEntityCheck);
+        WorkflowEntity updatedEntity = this.workflowRepoService.updateWorkflow(workflowEntity);
         
-        // If the record exists, update.
-        if (workflowEntity != null)
+        // No record at the id.
+        if (updatedEntity == null)
         {
-            return ((HeadersBuilder<BodyBuilder>) ResponseEntity.ok(this.workflowRepoService.updateWorkflow(workflowEntity))).build();
+            return ResponseEntity.notFound().build();
         }
-
-        // Exists criteria fails, return null.
-        return null;
+        
+        return ResponseEntity.ok(updatedEntity);
     }
     
     /**
-     * Method to update collection the work flow entity record.
+     * Method to create or replace the work flow entity record by id.
+     * 
+     * @param workflowEntity - work flow entity to be created or replaced.
+     * @return work flow entity upsert response.
+     */
+    @PutMapping("/workflowentity/upsert")
+    public ResponseEntity<WorkflowEntity> upsertWorkflowEntity(
+                    @RequestBody WorkflowEntity workflowEntity)
+    {
+        WorkflowEntity upsertedEntity = this.workflowRepoService.upsertWorkflow(workflowEntity);
+        
+        // No id - the record cannot be keyed.
+        if (upsertedEntity == null)
+        {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(upsertedEntity);
+    }
+    
+    /**
+     * Method to update collection the work flow entity record. The
+     * collection is updated in a single transaction with batched
+     * statements.
      * 
      * @param workflowEntities - collection of work flow entities to be updated.
+     * @return outcome of each submitted record.
      */
-    @SuppressWarnings("unchecked")
     @PatchMapping("/workflowentity/updateAll/{workflowentities}")
-    public ResponseEntity<Void> updateWorkflowEntities(
+    public ResponseEntity<List<WorkflowWriteResult>> updateWorkflowEntities(
                     @RequestBody Iterable<? extends WorkflowEntity> workflowEntities)
     {
-
-        // Iterate over the collection of work flow entities and update records.
-        for (WorkflowEntity workflowEntity: workflowEntities)
-        {
-            this.workflowRepoService.updateWorkflow(workflowEntity);
-        }
-     
-        // Return okay.
-        return ResponseEntity.ok().build();
+        // Update the collection of work flow entities and return the outcomes.
+        return ResponseEntity.ok(this.workflowRepoService.updateWorkflows(workflowEntities));
     }
 
     /**
@@ -165,10 +851,13 @@ public class WorkflowController
      * @param workflowEntityId - work flow entity id to be deleted.
      */
     @DeleteMapping("/workflowentity/delete/{workflowentityid}")
-    public ResponseEntity<Void> deleteWorkflowById(@PathVariable Long workflowEntityId)
+    public ResponseEntity<Void> deleteWorkflowById(@PathVariable("workflowentityid") long workflowEntityId)
     {
-        // Delete the work flow entity by id.
-        this.workflowRepoService.deleteWorkflowById(workflowEntityId);
+        // Delete the work flow entity by id - not found if it did not exist.
+        if (!this.workflowRepoService.deleteWorkflowById(workflowEntityId))
+        {
+            return ResponseEntity.notFound().build();
+        }
         
         // Return okay.
         return ResponseEntity.ok().build();
@@ -207,6 +896,42 @@ public class WorkflowController
     }
     
     
+    /**
+     * Method to delete work flow entity records by id.
+     * 
+     * @param workflowEntityIds - ids of the work flow entities to be deleted.
+     * @return number of records deleted.
+     */
+    @DeleteMapping("/workflowentity/delete/ids")
+    public ResponseEntity<Integer> deleteWorkflowsById(@RequestBody List<Long> workflowEntityIds)
+    {
+        // Delete the work flow entities with set based statements.
+        return ResponseEntity.ok(this.workflowRepoService.deleteWorkflowsById(workflowEntityIds));
+    }
+    
+    
+    /**
+     * Method to delete the work flow entity records matching a filter, for
+     * example CANCELLED workflows created before a given date.
+     * 
+     * @param workflowFilter - filter criteria, at least one must be set.
+     * @return number of records deleted.
+     */
+    @DeleteMapping("/workflowentity/delete/filter")
+    public ResponseEntity<Integer> deleteWorkflowsByFilter(@RequestBody WorkflowFilter workflowFilter)
+    {
+        try
+        {
+            // Delete the matching work flow entities in the database.
+            return ResponseEntity.ok(this.workflowRepoService.deleteWorkflowsByFilter(workflowFilter));
+        }
+        catch (IllegalArgumentException e)
+        {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    
     /**
      * Method to delete all of the work flow entity records.
      * 
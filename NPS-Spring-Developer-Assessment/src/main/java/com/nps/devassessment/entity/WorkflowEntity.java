@@ -4,6 +4,10 @@ import javax.persistence.*;
 import java.io.Serializable;
 import java.sql.Timestamp;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.jpa.QueryHints;
+
 /**
  * Copyright 2021
  * 
@@ -12,6 +16,13 @@ import java.sql.Timestamp;
  * Purpose  : Class to define the workflow entity record. This class
  *            includes defined named queries with replacement parameters.
  *            
+ *            Records are held in the second level cache region 'workflow',
+ *            and the results of Workflow.findAll in the query cache region
+ *            'workflow.queries' (see ehcache.xml). Hibernate invalidates
+ *            cached query results whenever the table is written through
+ *            JPA, and evicts the records touched by bulk and native
+ *            statements.
+ *            
  * Version
  *    1.0   16 Jun 2021 - initial release.
  * 
@@ -20,17 +31,24 @@ import java.sql.Timestamp;
  */
 @Entity
 @Table(name = "Workflow")
-@NamedQuery(name = "Workflow.findAll", query = "SELECT w FROM WorkflowEntity w")
-@NamedNativeQueries(value = {
-    @NamedNativeQuery(name = "Workflow.selectQuery", query = "SELECT w FROM WorkflowEntity w :strquery"),
-    @NamedNativeQuery(name = "Workflow.fullQuery", query = ":strquery")
-
-}) 
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = WorkflowEntity.CACHE_REGION)
+@NamedQuery(name = "Workflow.findAll", query = "SELECT w FROM WorkflowEntity w", hints = {
+    @QueryHint(name = QueryHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = QueryHints.HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION)
+})
 public class WorkflowEntity implements Serializable
 {
 
     private static final long serialVersionUID = 1L;
 
+    /**
+     * Second level cache regions - records, and query results.
+     */
+    public static final String CACHE_REGION       = "workflow";
+
+    public static final String QUERY_CACHE_REGION = "workflow.queries";
+
     @Id
     private Long      id;
 
@@ -76,12 +94,42 @@ public class WorkflowEntity implements Serializable
     @Column(name = "task_metadata")
     private String    taskMetadata;
 
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long      version;
+
 
     public WorkflowEntity()
     {
     }
 
 
+    /**
+     * Copy constructor - creates a detached copy of the record.
+     * 
+     * @param source - work flow entity record to copy.
+     */
+    public WorkflowEntity(WorkflowEntity source)
+    {
+        this.id = source.id;
+        this.workflowId = source.workflowId;
+        this.kpfConfirmed = source.kpfConfirmed;
+        this.yjbYp = source.yjbYp;
+        this.workflowState = source.workflowState;
+        this.created = source.created;
+        this.modified = source.modified;
+        this.createdBy = source.createdBy;
+        this.modifiedBy = source.modifiedBy;
+        this.metadata = source.metadata;
+        this.process = source.process;
+        this.taskId = source.taskId;
+        this.previousState = source.previousState;
+        this.taskStatus = source.taskStatus;
+        this.taskMetadata = source.taskMetadata;
+        this.version = source.version;
+    }
+
+
     public Long getYjbYp()
     {
         return yjbYp;
@@ -260,4 +308,22 @@ public class WorkflowEntity implements Serializable
     {
         this.taskMetadata = taskMetadata;
     }
+
+
+    /**
+     * Version of the record - incremented by every write, so identifies
+     * the state of the record a reader has seen.
+     * 
+     * @return version.
+     */
+    public Long getVersion()
+    {
+        return version;
+    }
+
+
+    public void setVersion(Long version)
+    {
+        this.version = version;
+    }
 }
@@ -0,0 +1,42 @@
+package com.nps.devassessment.exception;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   PlacementUnavailableException.java
+ *
+ * Purpose  : Exception raised when the placements service cannot answer a
+ *            placement lookup: the call timed out, the concurrency limit
+ *            for the service was reached, or the service failed.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class PlacementUnavailableException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final boolean     timedOut;
+
+
+    public PlacementUnavailableException(String message, boolean timedOut, Throwable cause)
+    {
+        super(message, cause);
+
+        this.timedOut = timedOut;
+    }
+
+
+    /**
+     * Whether the lookup failed because it ran out of time.
+     *
+     * @return true for a time out.
+     */
+    public boolean isTimedOut()
+    {
+        return timedOut;
+    }
+}
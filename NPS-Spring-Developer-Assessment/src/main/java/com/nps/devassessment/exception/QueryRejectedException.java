@@ -0,0 +1,43 @@
+package com.nps.devassessment.exception;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   QueryRejectedException.java
+ *
+ * Purpose  : Exception raised when an ad hoc query is refused: its
+ *            estimated cost is over the limit, it returns more rows than
+ *            allowed, or no slot for an expensive query came free in time.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class QueryRejectedException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    private final boolean     retryable;
+
+
+    public QueryRejectedException(String message, boolean retryable)
+    {
+        super(message);
+
+        this.retryable = retryable;
+    }
+
+
+    /**
+     * Whether the same query may be admitted later - it was only refused
+     * because the database was busy with other expensive queries.
+     *
+     * @return true when worth retrying.
+     */
+    public boolean isRetryable()
+    {
+        return retryable;
+    }
+}
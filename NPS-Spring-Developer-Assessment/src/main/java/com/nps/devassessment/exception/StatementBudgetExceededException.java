@@ -0,0 +1,27 @@
+package com.nps.devassessment.exception;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   StatementBudgetExceededException.java
+ *
+ * Purpose  : Exception raised, with workflow.sql.over-budget=fail, in place
+ *            of a SQL statement that would take a web request over its
+ *            statement budget (see StatementBudgetFilter).
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class StatementBudgetExceededException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+
+    public StatementBudgetExceededException(String message)
+    {
+        super(message);
+    }
+}
@@ -0,0 +1,156 @@
+package com.nps.devassessment.metrics;
+
+import org.hibernate.BaseSessionEventListener;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   HibernateSessionMetrics.java
+ *
+ * Purpose  : Hibernate session event listener recording the work done by
+ *            each session when it ends:
+ *
+ *              hibernate.session.statements  - JDBC statements and batches
+ *              hibernate.session.flushes     - flushes
+ *              hibernate.session.cache.gets  - second level cache gets,
+ *                                              tagged result=hit|miss
+ *
+ *            With open session in view a web request uses one session, so
+ *            the summaries give the statements and flushes per request.
+ *            Each statement is also added to the RequestStatements counts
+ *            of the executing thread, when they are being kept, and a
+ *            statement over their budget is failed before it runs.
+ *
+ *            Hibernate creates one listener per session (see
+ *            hibernate.session.events.auto), so the meters are registered in
+ *            the global registry, to which Spring Boot adds its registries.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class HibernateSessionMetrics extends BaseSessionEventListener
+{
+    private static final long serialVersionUID = 1L;
+
+    private int               statements;
+
+    private long              statementStart;
+
+    private int               flushes;
+
+    private int               cacheHits;
+
+    private int               cacheMisses;
+
+
+    @Override
+    public void jdbcExecuteStatementStart()
+    {
+        statementStart();
+    }
+
+
+    @Override
+    public void jdbcExecuteStatementEnd()
+    {
+        statementEnd();
+    }
+
+
+    @Override
+    public void jdbcExecuteBatchStart()
+    {
+        statementStart();
+    }
+
+
+    @Override
+    public void jdbcExecuteBatchEnd()
+    {
+        statementEnd();
+    }
+
+
+    private void statementStart()
+    {
+        this.statementStart = System.nanoTime();
+
+        RequestStatements requestStatements = RequestStatements.current();
+
+        if (requestStatements != null)
+        {
+            requestStatements.checkBudget();
+        }
+    }
+
+
+    private void statementEnd()
+    {
+        this.statements++;
+
+        RequestStatements requestStatements = RequestStatements.current();
+
+        if (requestStatements != null)
+        {
+            requestStatements.record(System.nanoTime() - this.statementStart);
+        }
+    }
+
+
+    @Override
+    public void flushEnd(int numberOfEntities, int numberOfCollections)
+    {
+        this.flushes++;
+    }
+
+
+    @Override
+    public void cacheGetEnd(boolean hit)
+    {
+        if (hit)
+        {
+            this.cacheHits++;
+        }
+        else
+        {
+            this.cacheMisses++;
+        }
+    }
+
+
+    @Override
+    public void end()
+    {
+        MeterRegistry registry = Metrics.globalRegistry;
+
+        DistributionSummary.builder("hibernate.session.statements")
+                        .description("JDBC statements executed per Hibernate session")
+                        .register(registry)
+                        .record(this.statements);
+
+        DistributionSummary.builder("hibernate.session.flushes")
+                        .description("Flushes per Hibernate session")
+                        .register(registry)
+                        .record(this.flushes);
+
+        if (this.cacheHits > 0)
+        {
+            Counter.builder("hibernate.session.cache.gets").tag("result", "hit").register(registry)
+                            .increment(this.cacheHits);
+        }
+
+        if (this.cacheMisses > 0)
+        {
+            Counter.builder("hibernate.session.cache.gets").tag("result", "miss").register(registry)
+                            .increment(this.cacheMisses);
+        }
+    }
+}
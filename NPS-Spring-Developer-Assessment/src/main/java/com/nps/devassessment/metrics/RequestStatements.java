@@ -0,0 +1,124 @@
+package com.nps.devassessment.metrics;
+
+import com.nps.devassessment.exception.StatementBudgetExceededException;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   RequestStatements.java
+ *
+ * Purpose  : Class to count the JDBC statements executed by Hibernate on
+ *            the current thread, and the time spent executing them, between
+ *            begin() and end() - by StatementBudgetFilter, one web request.
+ *            Work handed to other threads (asynchronous queries, streamed
+ *            exports) is not counted against the request. A statement
+ *            beyond the budget given to begin() fails before it runs.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public final class RequestStatements
+{
+    private static final ThreadLocal<RequestStatements> CURRENT = new ThreadLocal<>();
+
+    private final int budget;
+
+    private int       count;
+
+    private long      nanos;
+
+
+    private RequestStatements(int budget)
+    {
+        this.budget = budget;
+    }
+
+
+    /**
+     * Start counting on the current thread.
+     *
+     * @param budget - statements allowed; Integer.MAX_VALUE for no limit.
+     * @return the new counts.
+     */
+    public static RequestStatements begin(int budget)
+    {
+        RequestStatements statements = new RequestStatements(budget);
+
+        CURRENT.set(statements);
+
+        return statements;
+    }
+
+
+    /**
+     * Counts of the current thread.
+     *
+     * @return counts, or null when not counting.
+     */
+    public static RequestStatements current()
+    {
+        return CURRENT.get();
+    }
+
+
+    /**
+     * Stop counting on the current thread.
+     */
+    public static void end()
+    {
+        CURRENT.remove();
+    }
+
+
+    /**
+     * Check that one more statement or batch keeps within the budget.
+     *
+     * @throws StatementBudgetExceededException when it does not.
+     */
+    void checkBudget()
+    {
+        if (this.count >= this.budget)
+        {
+            throw new StatementBudgetExceededException("Over the SQL statement budget of " + this.budget);
+        }
+    }
+
+
+    /**
+     * Record an executed statement or batch.
+     *
+     * @param elapsedNanos - execution time.
+     */
+    void record(long elapsedNanos)
+    {
+        this.count++;
+        this.nanos += elapsedNanos;
+    }
+
+
+    /**
+     * Whether a statement was refused for the budget - it is counted, so
+     * the count is then over the budget.
+     *
+     * @return true when over the budget.
+     */
+    public boolean isOverBudget()
+    {
+        return this.count > this.budget;
+    }
+
+
+    public int getCount()
+    {
+        return count;
+    }
+
+
+    public long getMillis()
+    {
+        return nanos / 1_000_000;
+    }
+}
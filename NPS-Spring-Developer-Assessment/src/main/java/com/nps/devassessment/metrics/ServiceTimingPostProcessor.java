@@ -0,0 +1,124 @@
+package com.nps.devassessment.metrics;
+
+import java.util.concurrent.CompletableFuture;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.AbstractAdvisingBeanPostProcessor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.RootClassFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.service.WorkflowRepoService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   ServiceTimingPostProcessor.java
+ *
+ * Purpose  : Bean post processor to time every method of the
+ *            WorkflowRepoService bean as the 'workflow.service' timer,
+ *            tagged with the method name and the exception thrown ('none'
+ *            on success). The timing wraps the transaction, so it covers
+ *            commit. For methods returning a CompletableFuture the timer
+ *            stops when the future completes.
+ *
+ *            Percentiles and the percentile histogram are configured with
+ *            the management.metrics.distribution.* properties.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+public class ServiceTimingPostProcessor extends AbstractAdvisingBeanPostProcessor
+{
+    private static final long serialVersionUID = 1L;
+
+    static final String TIMER_NAME = "workflow.service";
+
+
+    public ServiceTimingPostProcessor(ObjectProvider<MeterRegistry> meterRegistry)
+    {
+        this.advisor = new DefaultPointcutAdvisor(new ComposablePointcut(new RootClassFilter(WorkflowRepoService.class)),
+                        new TimingInterceptor(meterRegistry));
+
+        // Time the whole call, including the transaction.
+        setBeforeExistingAdvisors(true);
+    }
+
+
+    /**
+     * Interceptor recording the duration of each call.
+     */
+    private static final class TimingInterceptor implements MethodInterceptor
+    {
+        private final ObjectProvider<MeterRegistry> meterRegistry;
+
+
+        private TimingInterceptor(ObjectProvider<MeterRegistry> meterRegistry)
+        {
+            this.meterRegistry = meterRegistry;
+        }
+
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable
+        {
+            MeterRegistry registry = this.meterRegistry.getIfAvailable();
+
+            // No registry - nothing to record.
+            if (registry == null)
+            {
+                return invocation.proceed();
+            }
+
+            String method = invocation.getMethod().getName();
+
+            Timer.Sample sample = Timer.start(registry);
+
+            Object result;
+
+            try
+            {
+                result = invocation.proceed();
+            }
+            catch (Throwable e)
+            {
+                stop(registry, sample, method, e);
+                throw e;
+            }
+
+            // Asynchronous call - time until it completes. The future itself
+            // is returned, not the timing stage, so cancelling it still
+            // reaches the work behind it.
+            if (result instanceof CompletableFuture)
+            {
+                ((CompletableFuture<?>) result).whenComplete((value, e) -> stop(registry, sample, method, e));
+
+                return result;
+            }
+
+            stop(registry, sample, method, null);
+
+            return result;
+        }
+
+
+        private static void stop(MeterRegistry registry, Timer.Sample sample, String method, Throwable e)
+        {
+            sample.stop(Timer.builder(TIMER_NAME)
+                            .description("WorkflowRepoService call duration")
+                            .tag("method", method)
+                            .tag("exception", (e != null) ? e.getClass().getSimpleName() : "none")
+                            .register(registry));
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.nps.devassessment.metrics;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.model.SlowQuery;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   SlowQueriesEndpoint.java
+ *
+ * Purpose  : Actuator endpoint reporting the slowest ad hoc query shapes
+ *            recorded by SlowQueryLog, slowest first, at
+ *            /actuator/slowqueries. A DELETE clears the log.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint
+{
+    private final SlowQueryLog slowQueryLog;
+
+
+    SlowQueriesEndpoint(SlowQueryLog slowQueryLog)
+    {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+
+    @ReadOperation
+    public List<SlowQuery> slowQueries()
+    {
+        return this.slowQueryLog.slowest();
+    }
+
+
+    @DeleteOperation
+    public void reset()
+    {
+        this.slowQueryLog.reset();
+    }
+}
@@ -0,0 +1,347 @@
+package com.nps.devassessment.metrics;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.model.SlowQuery;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   SlowQueryLog.java
+ *
+ * Purpose  : Class to record the execution times of ad hoc queries by
+ *            shape - the statement text with parameters and any string and
+ *            numeric literals replaced by '?' and white space collapsed -
+ *            keeping the count, total and maximum time of each.
+ *
+ *            Only statements generated by the application are timed, never
+ *            text submitted by a client: the first execution of a shape
+ *            taking workflow.slow-query.threshold-ms or more has its plan
+ *            captured by H2 EXPLAIN ANALYZE of the statement with the same
+ *            values bound, on a background thread so the caller is not held
+ *            up by a second execution. The capture runs under a statement
+ *            time out of workflow.slow-query.explain-timeout-seconds, and a
+ *            statement that failed - for example by timing out - is only
+ *            explained, not executed again. Plans are only captured for a
+ *            single plain SELECT; workflow.slow-query.explain=plan captures
+ *            the estimated plan without executing the query, and off
+ *            captures none.
+ *
+ *            At most workflow.slow-query.max-shapes slow shapes are reported
+ *            (see SlowQueriesEndpoint). Shapes that have never been slow are
+ *            dropped first when more than ten times that many are tracked.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+public class SlowQueryLog implements DisposableBean
+{
+    private static final Logger  log             = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final Pattern STRING_LITERAL  = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern PARAMETER       = Pattern.compile("\\?\\d+");
+
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern LITERAL_LIST    = Pattern.compile("\\?(?:\\s*,\\s*\\?)+");
+
+    private static final Pattern WHITE_SPACE     = Pattern.compile("\\s+");
+
+    private static final Pattern PLAIN_SELECT    = Pattern.compile("(?is)\\s*SELECT\\b(?!.*(?:;|--|/\\*)).*");
+
+    private final Map<String, Shape>     mapShape = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate           jdbcTemplate;
+
+    private final ThreadPoolTaskExecutor explainExecutor;
+
+    private final long                   thresholdNanos;
+
+    private final int                    maxShapes;
+
+    private final String                 explain;
+
+
+    SlowQueryLog(JdbcTemplate jdbcTemplate,
+                    @Value("${workflow.slow-query.threshold-ms:500}") long thresholdMs,
+                    @Value("${workflow.slow-query.max-shapes:50}") int maxShapes,
+                    @Value("${workflow.slow-query.explain:analyze}") String explain,
+                    @Value("${workflow.slow-query.explain-timeout-seconds:10}") int explainTimeoutSeconds)
+    {
+        // A template of its own, so the time out applies to plans only.
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setQueryTimeout(explainTimeoutSeconds);
+        this.thresholdNanos = thresholdMs * 1_000_000;
+        this.maxShapes = maxShapes;
+        this.explain = explain.toLowerCase();
+
+        // One thread, a few waiting plans - any more are dropped.
+        this.explainExecutor = new ThreadPoolTaskExecutor();
+        this.explainExecutor.setCorePoolSize(1);
+        this.explainExecutor.setMaxPoolSize(1);
+        this.explainExecutor.setQueueCapacity(10);
+        this.explainExecutor.setThreadNamePrefix("slowQueryExplain-");
+        this.explainExecutor.initialize();
+    }
+
+
+    /**
+     * Run an ad hoc query, recording its execution time against its shape.
+     * Failed executions are timed too.
+     *
+     * @param strSql - SQL statement the query runs, as generated by the
+     *        application with numbered parameters ?1, ?2 ...; never text
+     *        submitted by a client.
+     * @param lstValue - values bound to the parameters, for the plan.
+     * @param query - query to run.
+     * @return query result.
+     */
+    public <T> T time(String strSql, List<?> lstValue, Supplier<T> query)
+    {
+        long start = System.nanoTime();
+
+        boolean failed = true;
+
+        try
+        {
+            T result = query.get();
+
+            failed = false;
+
+            return result;
+        }
+        finally
+        {
+            record(strSql, lstValue, failed, System.nanoTime() - start);
+        }
+    }
+
+
+    /**
+     * The slowest shapes, slowest first.
+     *
+     * @return shapes with at least one slow execution.
+     */
+    public List<SlowQuery> slowest()
+    {
+        return this.mapShape.values().stream()
+                        .filter(Shape::isSlow)
+                        .sorted(Comparator.comparingLong(Shape::getMaxNanos).reversed())
+                        .limit(this.maxShapes)
+                        .map(Shape::toSlowQuery)
+                        .collect(Collectors.toList());
+    }
+
+
+    /**
+     * Forget every shape.
+     */
+    public void reset()
+    {
+        this.mapShape.clear();
+    }
+
+
+    private void record(String strSql, List<?> lstValue, boolean failed, long elapsedNanos)
+    {
+        String strShape = normalize(strSql);
+
+        Shape shape = this.mapShape.computeIfAbsent(strShape, Shape::new);
+
+        shape.add(elapsedNanos);
+
+        // Capture the plan on the first slow execution only.
+        if ((elapsedNanos >= this.thresholdNanos) && shape.markSlow())
+        {
+            log.warn("Slow query ({} ms): {}", elapsedNanos / 1_000_000, strShape);
+
+            capturePlan(shape, strSql, lstValue, failed);
+        }
+
+        if (this.mapShape.size() > this.maxShapes * 10)
+        {
+            prune();
+        }
+    }
+
+
+    private void capturePlan(Shape shape, String strSql, List<?> lstValue, boolean failed)
+    {
+        if ("off".equals(this.explain) || (strSql == null) || !PLAIN_SELECT.matcher(strSql).matches())
+        {
+            return;
+        }
+
+        // Do not run a failed statement again.
+        String strExplain = ("plan".equals(this.explain) || failed ? "EXPLAIN " : "EXPLAIN ANALYZE ") + strSql;
+
+        Object[] values = (lstValue != null) ? lstValue.toArray() : new Object[0];
+
+        try
+        {
+            this.explainExecutor.execute(() -> {
+                try
+                {
+                    shape.plan = String.join("\n", this.jdbcTemplate.queryForList(strExplain, String.class, values));
+                }
+                catch (RuntimeException e)
+                {
+                    shape.plan = "Plan unavailable: " + e.getMessage();
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            shape.plan = "Plan not captured: too many plans pending";
+        }
+    }
+
+
+    private synchronized void prune()
+    {
+        List<Shape> lstFast = new ArrayList<>();
+
+        for (Shape shape : this.mapShape.values())
+        {
+            if (!shape.isSlow())
+            {
+                lstFast.add(shape);
+            }
+        }
+
+        // Drop the fastest never-slow shapes, keeping room for new ones.
+        lstFast.sort(Comparator.comparingLong(Shape::getMaxNanos));
+
+        int excess = this.mapShape.size() - this.maxShapes * 5;
+
+        for (int i = 0; (i < lstFast.size()) && (i < excess); i++)
+        {
+            this.mapShape.remove(lstFast.get(i).strShape);
+        }
+    }
+
+
+    /**
+     * Shape of a query.
+     *
+     * @param strQuery - query text.
+     * @return text with parameters and literals replaced by '?', lists of
+     *         them by a single '?', and white space collapsed.
+     */
+    static String normalize(String strQuery)
+    {
+        if (strQuery == null)
+        {
+            return "";
+        }
+
+        String strShape = STRING_LITERAL.matcher(strQuery).replaceAll("?");
+        strShape = PARAMETER.matcher(strShape).replaceAll("?");
+        strShape = NUMERIC_LITERAL.matcher(strShape).replaceAll("?");
+        strShape = LITERAL_LIST.matcher(strShape).replaceAll("?");
+
+        // Return result
+        return WHITE_SPACE.matcher(strShape).replaceAll(" ").trim();
+    }
+
+
+    @Override
+    public void destroy()
+    {
+        this.explainExecutor.shutdown();
+    }
+
+
+    /**
+     * Execution statistics of one shape.
+     */
+    private static final class Shape
+    {
+        private final String       strShape;
+
+        private final LongAdder    count      = new LongAdder();
+
+        private final LongAdder    totalNanos = new LongAdder();
+
+        private final AtomicLong   maxNanos   = new AtomicLong();
+
+        private volatile Timestamp firstSlowAt;
+
+        private volatile String    plan;
+
+
+        private Shape(String strShape)
+        {
+            this.strShape = strShape;
+        }
+
+
+        private void add(long elapsedNanos)
+        {
+            this.count.increment();
+            this.totalNanos.add(elapsedNanos);
+            this.maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+
+        /**
+         * Mark the shape slow.
+         *
+         * @return true for the first caller only.
+         */
+        private synchronized boolean markSlow()
+        {
+            if (this.firstSlowAt != null)
+            {
+                return false;
+            }
+
+            this.firstSlowAt = new Timestamp(System.currentTimeMillis());
+
+            return true;
+        }
+
+
+        private boolean isSlow()
+        {
+            return this.firstSlowAt != null;
+        }
+
+
+        private long getMaxNanos()
+        {
+            return this.maxNanos.get();
+        }
+
+
+        private SlowQuery toSlowQuery()
+        {
+            return new SlowQuery(this.strShape, this.count.sum(), this.totalNanos.sum() / 1_000_000,
+                            this.maxNanos.get() / 1_000_000, this.firstSlowAt, this.plan);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.nps.devassessment.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   StatementBudgetFilter.java
+ *
+ * Purpose  : Servlet filter counting the SQL statements each web request
+ *            executes, and the time spent executing them. The counts are
+ *            returned in the X-SQL-Statements and X-SQL-Time-Ms response
+ *            headers and logged, with the route, at DEBUG.
+ *
+ *            A route executing more than workflow.sql.statement-budget
+ *            statements is logged at WARN; with workflow.sql.over-budget=fail
+ *            the statement over the budget is refused before it runs (see
+ *            RequestStatements), and the request fails with a 500 instead,
+ *            so tests catch per-row queries creeping into a bulk path. No
+ *            response body is buffered: a statement refused while the body
+ *            is written aborts the response instead.
+ *
+ *            Requests completing asynchronously are not counted; their
+ *            statements run on other threads.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+public class StatementBudgetFilter extends OncePerRequestFilter
+{
+    private static final Logger log = LoggerFactory.getLogger(StatementBudgetFilter.class);
+
+    static final String         HEADER_STATEMENTS = "X-SQL-Statements";
+
+    static final String         HEADER_TIME_MS    = "X-SQL-Time-Ms";
+
+    private final int           statementBudget;
+
+    private final boolean       bFailOverBudget;
+
+
+    StatementBudgetFilter(@Value("${workflow.sql.statement-budget:50}") int statementBudget,
+                    @Value("${workflow.sql.over-budget:warn}") String overBudget)
+    {
+        this.statementBudget = statementBudget;
+        this.bFailOverBudget = "fail".equalsIgnoreCase(overBudget);
+    }
+
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                    FilterChain filterChain) throws ServletException, IOException
+    {
+        RequestStatements statements = RequestStatements.begin(
+                        this.bFailOverBudget ? this.statementBudget : Integer.MAX_VALUE);
+
+        try
+        {
+            filterChain.doFilter(request, response);
+        }
+        catch (ServletException | IOException | RuntimeException e)
+        {
+            // A statement refused for the budget failed the request - fail
+            // it as over budget below, unless the response is under way.
+            if (!statements.isOverBudget() || response.isCommitted())
+            {
+                throw e;
+            }
+        }
+        finally
+        {
+            RequestStatements.end();
+        }
+
+        // The work of an asynchronous request is still running elsewhere.
+        if (isAsyncStarted(request))
+        {
+            return;
+        }
+
+        // A response with a body already has the headers (see
+        // StatementCountResponseAdvice); one without a body is not yet
+        // committed.
+        if (!response.isCommitted())
+        {
+            response.setHeader(HEADER_STATEMENTS, String.valueOf(statements.getCount()));
+            response.setHeader(HEADER_TIME_MS, String.valueOf(statements.getMillis()));
+        }
+
+        String strRoute = request.getMethod() + " " + route(request);
+
+        log.debug("{} executed {} SQL statements in {} ms", strRoute, statements.getCount(),
+                        statements.getMillis());
+
+        // Check that the route kept within its budget.
+        if (statements.getCount() > this.statementBudget)
+        {
+            String strMessage = strRoute + " executed " + statements.getCount()
+                            + " SQL statements, over the budget of " + this.statementBudget;
+
+            log.warn(strMessage);
+
+            // Fail the request, discarding any unwritten body.
+            if (this.bFailOverBudget && !response.isCommitted())
+            {
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, strMessage);
+            }
+        }
+    }
+
+
+    private static String route(HttpServletRequest request)
+    {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+
+        return (pattern != null) ? pattern.toString() : request.getRequestURI();
+    }
+}
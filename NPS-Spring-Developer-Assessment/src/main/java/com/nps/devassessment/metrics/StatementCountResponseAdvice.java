@@ -0,0 +1,55 @@
+package com.nps.devassessment.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   StatementCountResponseAdvice.java
+ *
+ * Purpose  : Controller advice adding the SQL statement count and time of
+ *            the request so far to a response body's headers, before the
+ *            body is written and the headers can no longer change. Only
+ *            requests counted by StatementBudgetFilter are affected.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@ControllerAdvice
+public class StatementCountResponseAdvice implements ResponseBodyAdvice<Object>
+{
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType)
+    {
+        return true;
+    }
+
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                    Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+                    ServerHttpResponse response)
+    {
+        RequestStatements statements = RequestStatements.current();
+
+        if (statements != null)
+        {
+            response.getHeaders().set(StatementBudgetFilter.HEADER_STATEMENTS,
+                            String.valueOf(statements.getCount()));
+            response.getHeaders().set(StatementBudgetFilter.HEADER_TIME_MS, String.valueOf(statements.getMillis()));
+        }
+
+        // Return result
+        return body;
+    }
+}
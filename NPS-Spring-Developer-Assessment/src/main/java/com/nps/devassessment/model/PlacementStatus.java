@@ -0,0 +1,30 @@
+package com.nps.devassessment.model;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   PlacementStatus.java
+ * 
+ * Purpose  : Enumeration of the outcomes of looking up the placement of
+ *            a single work flow entity record.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public enum PlacementStatus
+{
+    /** The placement was found. */
+    FOUND,
+
+    /** The placements service has no placement for the work flow. */
+    NOT_FOUND,
+
+    /** The lookup did not complete in time. */
+    TIMED_OUT,
+
+    /** The placements service failed or refused the lookup. */
+    UNAVAILABLE
+}
@@ -0,0 +1,101 @@
+package com.nps.devassessment.model;
+
+import java.sql.Timestamp;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   SlowQuery.java
+ * 
+ * Purpose  : Class to hold the execution statistics of one ad hoc query
+ *            shape - the query text with its literals replaced by '?' - and
+ *            the plan captured on its first slow execution.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public class SlowQuery
+{
+    private String    query;
+
+    private long      count;
+
+    private long      totalMs;
+
+    private long      maxMs;
+
+    private Timestamp firstSlowAt;
+
+    private String    plan;
+
+
+    public SlowQuery()
+    {
+    }
+
+
+    public SlowQuery(String query, long count, long totalMs, long maxMs, Timestamp firstSlowAt, String plan)
+    {
+        this.query = query;
+        this.count = count;
+        this.totalMs = totalMs;
+        this.maxMs = maxMs;
+        this.firstSlowAt = firstSlowAt;
+        this.plan = plan;
+    }
+
+
+    /**
+     * Normalized query text.
+     * 
+     * @return query shape.
+     */
+    public String getQuery()
+    {
+        return query;
+    }
+
+
+    /**
+     * Executions of the shape, slow or not.
+     * 
+     * @return execution count.
+     */
+    public long getCount()
+    {
+        return count;
+    }
+
+
+    public long getTotalMs()
+    {
+        return totalMs;
+    }
+
+
+    public long getMaxMs()
+    {
+        return maxMs;
+    }
+
+
+    public Timestamp getFirstSlowAt()
+    {
+        return firstSlowAt;
+    }
+
+
+    /**
+     * EXPLAIN ANALYZE output of the first slow execution; null while it is
+     * being captured, or when the query is not a plain SELECT.
+     * 
+     * @return plan text.
+     */
+    public String getPlan()
+    {
+        return plan;
+    }
+}
@@ -0,0 +1,105 @@
+package com.nps.devassessment.model;
+
+import java.sql.Timestamp;
+import java.util.Map;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowCounts.java
+ * 
+ * Purpose  : Class to hold the number of work flow entity records by
+ *            workflow_state, process and task_status. Records with a null
+ *            value are counted under the key "NULL".
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public class WorkflowCounts
+{
+    /**
+     * Key under which null column values are counted.
+     */
+    public static final String NULL_KEY = "NULL";
+
+    private long              total;
+
+    private Map<String, Long> byWorkflowState;
+
+    private Map<String, Long> byProcess;
+
+    private Map<String, Long> byTaskStatus;
+
+    private Timestamp         reconciledAt;
+
+    private boolean           stale;
+
+
+    public WorkflowCounts()
+    {
+    }
+
+
+    public WorkflowCounts(long total, Map<String, Long> byWorkflowState,
+                    Map<String, Long> byProcess, Map<String, Long> byTaskStatus,
+                    Timestamp reconciledAt, boolean stale)
+    {
+        this.total = total;
+        this.byWorkflowState = byWorkflowState;
+        this.byProcess = byProcess;
+        this.byTaskStatus = byTaskStatus;
+        this.reconciledAt = reconciledAt;
+        this.stale = stale;
+    }
+
+
+    public long getTotal()
+    {
+        return total;
+    }
+
+
+    public Map<String, Long> getByWorkflowState()
+    {
+        return byWorkflowState;
+    }
+
+
+    public Map<String, Long> getByProcess()
+    {
+        return byProcess;
+    }
+
+
+    public Map<String, Long> getByTaskStatus()
+    {
+        return byTaskStatus;
+    }
+
+
+    /**
+     * Time of the last reconciliation against the database, null before
+     * the first.
+     * 
+     * @return reconciliation time.
+     */
+    public Timestamp getReconciledAt()
+    {
+        return reconciledAt;
+    }
+
+
+    /**
+     * True when a write could not be applied to the counters incrementally
+     * and they are awaiting reconciliation.
+     * 
+     * @return stale flag.
+     */
+    public boolean isStale()
+    {
+        return stale;
+    }
+}
@@ -0,0 +1,218 @@
+package com.nps.devassessment.model;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowFilter.java
+ *
+ * Purpose  : Class to define a structured work flow entity filter. Each
+ *            criterion that is set (not null and not empty) restricts the
+ *            result; the criteria are combined with AND. The filter is
+ *            compiled to parameterized JPQL, so values are always bound
+ *            and never spliced into the query text.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class WorkflowFilter
+{
+
+    private List<String> workflowStates;
+
+    private List<String> processes;
+
+    private List<String> taskStatuses;
+
+    private List<String> excludedTaskStatuses;
+
+    private List<Long>   yjbYpIds;
+
+    private Timestamp    createdAfter;
+
+    private Timestamp    createdBefore;
+
+    private Timestamp    modifiedAfter;
+
+    private Timestamp    modifiedBefore;
+
+    private List<String> nullFields;
+
+    private List<String> notNullFields;
+
+
+    public WorkflowFilter()
+    {
+    }
+
+
+    /**
+     * workflow_state IN (...)
+     */
+    public List<String> getWorkflowStates()
+    {
+        return workflowStates;
+    }
+
+
+    public void setWorkflowStates(List<String> workflowStates)
+    {
+        this.workflowStates = workflowStates;
+    }
+
+
+    /**
+     * process IN (...)
+     */
+    public List<String> getProcesses()
+    {
+        return processes;
+    }
+
+
+    public void setProcesses(List<String> processes)
+    {
+        this.processes = processes;
+    }
+
+
+    /**
+     * task_status IN (...)
+     */
+    public List<String> getTaskStatuses()
+    {
+        return taskStatuses;
+    }
+
+
+    public void setTaskStatuses(List<String> taskStatuses)
+    {
+        this.taskStatuses = taskStatuses;
+    }
+
+
+    /**
+     * task_status NOT IN (...) - as with SQL, rows with a null task_status
+     * do not match.
+     */
+    public List<String> getExcludedTaskStatuses()
+    {
+        return excludedTaskStatuses;
+    }
+
+
+    public void setExcludedTaskStatuses(List<String> excludedTaskStatuses)
+    {
+        this.excludedTaskStatuses = excludedTaskStatuses;
+    }
+
+
+    /**
+     * yjb_yp_id IN (...)
+     */
+    public List<Long> getYjbYpIds()
+    {
+        return yjbYpIds;
+    }
+
+
+    public void setYjbYpIds(List<Long> yjbYpIds)
+    {
+        this.yjbYpIds = yjbYpIds;
+    }
+
+
+    /**
+     * created &gt; value
+     */
+    public Timestamp getCreatedAfter()
+    {
+        return createdAfter;
+    }
+
+
+    public void setCreatedAfter(Timestamp createdAfter)
+    {
+        this.createdAfter = createdAfter;
+    }
+
+
+    /**
+     * created &lt; value
+     */
+    public Timestamp getCreatedBefore()
+    {
+        return createdBefore;
+    }
+
+
+    public void setCreatedBefore(Timestamp createdBefore)
+    {
+        this.createdBefore = createdBefore;
+    }
+
+
+    /**
+     * modified &gt; value
+     */
+    public Timestamp getModifiedAfter()
+    {
+        return modifiedAfter;
+    }
+
+
+    public void setModifiedAfter(Timestamp modifiedAfter)
+    {
+        this.modifiedAfter = modifiedAfter;
+    }
+
+
+    /**
+     * modified &lt; value
+     */
+    public Timestamp getModifiedBefore()
+    {
+        return modifiedBefore;
+    }
+
+
+    public void setModifiedBefore(Timestamp modifiedBefore)
+    {
+        this.modifiedBefore = modifiedBefore;
+    }
+
+
+    /**
+     * Entity properties that must be null, e.g. "taskStatus".
+     */
+    public List<String> getNullFields()
+    {
+        return nullFields;
+    }
+
+
+    public void setNullFields(List<String> nullFields)
+    {
+        this.nullFields = nullFields;
+    }
+
+
+    /**
+     * Entity properties that must not be null, e.g. "taskStatus".
+     */
+    public List<String> getNotNullFields()
+    {
+        return notNullFields;
+    }
+
+
+    public void setNotNullFields(List<String> notNullFields)
+    {
+        this.notNullFields = notNullFields;
+    }
+}
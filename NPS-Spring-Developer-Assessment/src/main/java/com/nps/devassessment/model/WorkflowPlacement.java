@@ -0,0 +1,77 @@
+package com.nps.devassessment.model;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowPlacement.java
+ * 
+ * Purpose  : Class to hold a work flow entity record enriched with its
+ *            placement, and the outcome of the placement lookup. The
+ *            placement is null unless the status is FOUND.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public class WorkflowPlacement
+{
+
+    private WorkflowEntity  workflow;
+
+    private placement       placement;
+
+    private PlacementStatus placementStatus;
+
+
+    public WorkflowPlacement()
+    {
+    }
+
+
+    public WorkflowPlacement(WorkflowEntity workflow, placement placement, PlacementStatus placementStatus)
+    {
+        this.workflow = workflow;
+        this.placement = placement;
+        this.placementStatus = placementStatus;
+    }
+
+
+    public WorkflowEntity getWorkflow()
+    {
+        return workflow;
+    }
+
+
+    public void setWorkflow(WorkflowEntity workflow)
+    {
+        this.workflow = workflow;
+    }
+
+
+    public placement getPlacement()
+    {
+        return placement;
+    }
+
+
+    public void setPlacement(placement placement)
+    {
+        this.placement = placement;
+    }
+
+
+    public PlacementStatus getPlacementStatus()
+    {
+        return placementStatus;
+    }
+
+
+    public void setPlacementStatus(PlacementStatus placementStatus)
+    {
+        this.placementStatus = placementStatus;
+    }
+}
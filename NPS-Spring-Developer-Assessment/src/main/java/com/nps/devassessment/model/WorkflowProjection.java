@@ -0,0 +1,97 @@
+package com.nps.devassessment.model;
+
+import java.io.IOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowProjection.java
+ * 
+ * Purpose  : Class to hold selected fields of one work flow entity record,
+ *            as read by a projection query - never a managed entity. The
+ *            field names are shared by every row of a result, so a row
+ *            costs little more than its values. Serialized as a JSON
+ *            object of the selected fields only.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+@JsonSerialize(using = WorkflowProjection.Serializer.class)
+public class WorkflowProjection
+{
+    private final List<String> fields;
+
+    private final Object[]     values;
+
+
+    public WorkflowProjection(List<String> fields, Object[] values)
+    {
+        this.fields = fields;
+        this.values = values;
+    }
+
+
+    /**
+     * Selected work flow entity property names, in select order.
+     * 
+     * @return field names.
+     */
+    public List<String> getFields()
+    {
+        return fields;
+    }
+
+
+    /**
+     * Value of a selected field.
+     * 
+     * @param field - work flow entity property name.
+     * @return value, or null when the field was not selected.
+     */
+    public Object get(String field)
+    {
+        int index = this.fields.indexOf(field);
+
+        return (index < 0) ? null : this.values[index];
+    }
+
+
+    /**
+     * Writes the selected fields, each value as it would be written for
+     * the entity.
+     */
+    public static class Serializer extends StdSerializer<WorkflowProjection>
+    {
+        private static final long serialVersionUID = 1L;
+
+
+        public Serializer()
+        {
+            super(WorkflowProjection.class);
+        }
+
+
+        @Override
+        public void serialize(WorkflowProjection projection, JsonGenerator gen, SerializerProvider provider)
+                        throws IOException
+        {
+            gen.writeStartObject();
+
+            for (int i = 0; i < projection.values.length; i++)
+            {
+                provider.defaultSerializeField(projection.fields.get(i), projection.values[i], gen);
+            }
+
+            gen.writeEndObject();
+        }
+    }
+}
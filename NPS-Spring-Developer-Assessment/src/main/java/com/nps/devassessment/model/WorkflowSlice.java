@@ -0,0 +1,52 @@
+package com.nps.devassessment.model;
+
+import java.util.List;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowSlice.java
+ * 
+ * Purpose  : Class to hold one slice of work flow entity records read by
+ *            keyset (seek) paging, together with the opaque cursor used to
+ *            request the following slice.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public class WorkflowSlice
+{
+
+    private List<WorkflowEntity> content;
+
+    private String               nextCursor;
+
+
+    public WorkflowSlice(List<WorkflowEntity> content, String nextCursor)
+    {
+        this.content = content;
+        this.nextCursor = nextCursor;
+    }
+
+
+    public List<WorkflowEntity> getContent()
+    {
+        return content;
+    }
+
+
+    /**
+     * Cursor for the next slice, null when the last record has been read.
+     * 
+     * @return next cursor or null.
+     */
+    public String getNextCursor()
+    {
+        return nextCursor;
+    }
+}
@@ -0,0 +1,76 @@
+package com.nps.devassessment.model;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowWriteResult.java
+ * 
+ * Purpose  : Class to report the outcome of writing one work flow entity
+ *            record within a bulk operation. The index is the position of
+ *            the record in the submission, which identifies records that
+ *            have no id.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public class WorkflowWriteResult
+{
+
+    private int                 index;
+
+    private Long                id;
+
+    private WorkflowWriteStatus status;
+
+
+    public WorkflowWriteResult()
+    {
+    }
+
+
+    public WorkflowWriteResult(int index, Long id, WorkflowWriteStatus status)
+    {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+    }
+
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+
+    public void setIndex(int index)
+    {
+        this.index = index;
+    }
+
+
+    public Long getId()
+    {
+        return id;
+    }
+
+
+    public void setId(Long id)
+    {
+        this.id = id;
+    }
+
+
+    public WorkflowWriteStatus getStatus()
+    {
+        return status;
+    }
+
+
+    public void setStatus(WorkflowWriteStatus status)
+    {
+        this.status = status;
+    }
+}
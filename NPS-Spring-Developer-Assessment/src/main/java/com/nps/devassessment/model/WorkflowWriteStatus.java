@@ -0,0 +1,36 @@
+package com.nps.devassessment.model;
+
+/**
+ * Copyright 2021
+ * 
+ * File Name:   WorkflowWriteStatus.java
+ * 
+ * Purpose  : Enumeration of the outcomes of writing a single work flow
+ *            entity record.
+ *            
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ * 
+ * @author mccormam
+ * 
+ */
+public enum WorkflowWriteStatus
+{
+    /** The record was created. */
+    CREATED,
+
+    /** The record was updated. */
+    UPDATED,
+
+    /** The record was deleted. */
+    DELETED,
+
+    /** No record exists with the id. */
+    NOT_FOUND,
+
+    /** A record already exists with the id. */
+    ALREADY_EXISTS,
+
+    /** The submitted record was null or had no id. */
+    INVALID
+}
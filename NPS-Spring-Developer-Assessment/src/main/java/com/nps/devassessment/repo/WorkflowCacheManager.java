@@ -0,0 +1,72 @@
+package com.nps.devassessment.repo;
+
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.Map;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowCacheManager.java
+ *
+ * Purpose  : Class to create the JCache cache manager of the Hibernate
+ *            second level cache from the Ehcache region configuration on
+ *            the class path, and hand it to Hibernate.
+ *
+ *            Hibernate only accepts an absolute URI for the configuration
+ *            (hibernate.javax.cache.uri), which a class path resource inside
+ *            the application jar does not have until it is resolved, so the
+ *            cache manager is built here instead.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+public class WorkflowCacheManager implements HibernatePropertiesCustomizer, DisposableBean
+{
+    private static final String PROVIDER = "org.ehcache.jsr107.EhcacheCachingProvider";
+
+    private final CacheManager  cacheManager;
+
+
+    WorkflowCacheManager(@Value("${workflow.cache.regions-config:/ehcache.xml}") String regionsConfig)
+                    throws URISyntaxException
+    {
+        URL url = WorkflowCacheManager.class.getResource(regionsConfig);
+
+        // Check that the region configuration exists.
+        if (url == null)
+        {
+            throw new IllegalStateException("Cache region configuration not found: " + regionsConfig);
+        }
+
+        this.cacheManager = Caching.getCachingProvider(PROVIDER)
+                        .getCacheManager(url.toURI(), WorkflowCacheManager.class.getClassLoader());
+    }
+
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties)
+    {
+        hibernateProperties.put(ConfigSettings.CACHE_MANAGER, this.cacheManager);
+    }
+
+
+    @Override
+    public void destroy()
+    {
+        this.cacheManager.close();
+    }
+}
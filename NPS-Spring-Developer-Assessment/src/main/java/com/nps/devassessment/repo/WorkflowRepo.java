@@ -1,9 +1,21 @@
 package com.nps.devassessment.repo;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_REGION;
+
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.nps.devassessment.entity.WorkflowEntity;
 
@@ -13,6 +25,9 @@ import com.nps.devassessment.entity.WorkflowEntity;
  * File Name:   WorkflowRepo.java
  * 
  * Purpose  : Class for defining the workflow entity repository functionality.
+ *            The read-mostly finders cache their results in the query cache
+ *            region 'workflow.queries'; writes through the repository
+ *            invalidate them.
  *            
  * Version
  *    1.0   16 Jun 2021 - initial release.
@@ -25,17 +40,125 @@ public interface WorkflowRepo
                 extends PagingAndSortingRepository<WorkflowEntity, Long>
 {
     /**
-     *  Method to execute composed query string
-     * @param strQuery
+     * Method to retrieve a page of records without the COUNT query that
+     * a full Page requires.
+     * @param pageable
+     * @return
+     */
+    Slice<WorkflowEntity> findAllBy(Pageable pageable);
+    
+    /**
+     * Method to retrieve the records of a young person in creation order.
+     * Served by index idx_workflow_yp_created.
+     * @param yjbYp
+     * @return
+     */
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION) })
+    List<WorkflowEntity> findByYjbYpOrderByCreatedAsc(Long yjbYp);
+    
+    /**
+     * Method to retrieve records by workflow state.
+     * Served by index idx_workflow_state.
+     * @param workflowState
+     * @return
+     */
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION) })
+    List<WorkflowEntity> findByWorkflowState(String workflowState);
+    
+    /**
+     * Method to retrieve records by process.
+     * Served by the leading column of idx_workflow_process_task_status.
+     * @param process
+     * @return
+     */
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION) })
+    List<WorkflowEntity> findByProcess(String process);
+    
+    /**
+     * Method to retrieve records by process and task status.
+     * Served by index idx_workflow_process_task_status.
+     * @param process
+     * @param taskStatus
      * @return
      */
-    List<WorkflowEntity> executeQuery(String strQuery);
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION) })
+    List<WorkflowEntity> findByProcessAndTaskStatus(String process, String taskStatus);
     
     /**
-     * Method to execute full query string
-     * @param strQuery
+     * Method to retrieve records by task status.
+     * Served by index idx_workflow_task_status.
+     * @param taskStatus
      * @return
      */
-    List<WorkflowEntity> fullQuery(String strQuery);
+    @QueryHints({ @QueryHint(name = HINT_CACHEABLE, value = "true"),
+                  @QueryHint(name = HINT_CACHE_REGION, value = WorkflowEntity.QUERY_CACHE_REGION) })
+    List<WorkflowEntity> findByTaskStatus(String taskStatus);
+    
+    /**
+     * Method to insert the record in one statement when no record with
+     * its id exists.
+     * @param w
+     * @return number of rows inserted - 0 if the id already exists.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO workflow (id, yjb_yp_id, workflow_id, kpf_confirmed, workflow_state, created, modified,"
+                    + " created_by, modified_by, metadata, process, task_id, previous_state, task_status, task_metadata)"
+                    + " SELECT :#{#w.id}, :#{#w.yjbYp}, :#{#w.workflowId}, :#{#w.kpfConfirmed}, :#{#w.workflowState},"
+                    + " :#{#w.created}, :#{#w.modified}, :#{#w.createdBy}, :#{#w.modifiedBy}, :#{#w.metadata},"
+                    + " :#{#w.process}, :#{#w.taskId}, :#{#w.previousState}, :#{#w.taskStatus}, :#{#w.taskMetadata}"
+                    + " FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM workflow WHERE id = :#{#w.id})",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("w") WorkflowEntity w);
+    
+    /**
+     * Method to update the record with the same id in one statement.
+     * @param w
+     * @return number of rows updated - 0 if the id does not exist.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE WorkflowEntity w SET w.yjbYp = :#{#w.yjbYp}, w.workflowId = :#{#w.workflowId},"
+                    + " w.kpfConfirmed = :#{#w.kpfConfirmed}, w.workflowState = :#{#w.workflowState},"
+                    + " w.created = :#{#w.created}, w.modified = :#{#w.modified}, w.createdBy = :#{#w.createdBy},"
+                    + " w.modifiedBy = :#{#w.modifiedBy}, w.metadata = :#{#w.metadata}, w.process = :#{#w.process},"
+                    + " w.taskId = :#{#w.taskId}, w.previousState = :#{#w.previousState},"
+                    + " w.taskStatus = :#{#w.taskStatus}, w.taskMetadata = :#{#w.taskMetadata},"
+                    + " w.version = w.version + 1"
+                    + " WHERE w.id = :#{#w.id}")
+    int updateById(@Param("w") WorkflowEntity w);
+    
+    /**
+     * Method to delete the record by id in one statement.
+     * @param id
+     * @return number of rows deleted - 0 if the id does not exist.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM WorkflowEntity w WHERE w.id = :id")
+    int deleteRowById(@Param("id") Long id);
+    
+    /**
+     * Method to insert the record, or replace the record with the same id,
+     * in one H2 MERGE statement. A replaced record moves to the next
+     * version; a new record starts at version 0.
+     * @param w
+     * @return number of rows merged.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(value = "MERGE INTO workflow (id, yjb_yp_id, workflow_id, kpf_confirmed, workflow_state, created, modified,"
+                    + " created_by, modified_by, metadata, process, task_id, previous_state, task_status, task_metadata,"
+                    + " version)"
+                    + " KEY (id) VALUES (:#{#w.id}, :#{#w.yjbYp}, :#{#w.workflowId}, :#{#w.kpfConfirmed}, :#{#w.workflowState},"
+                    + " :#{#w.created}, :#{#w.modified}, :#{#w.createdBy}, :#{#w.modifiedBy}, :#{#w.metadata},"
+                    + " :#{#w.process}, :#{#w.taskId}, :#{#w.previousState}, :#{#w.taskStatus}, :#{#w.taskMetadata},"
+                    + " COALESCE((SELECT version + 1 FROM workflow WHERE id = :#{#w.id}), 0))",
+           nativeQuery = true)
+    int upsert(@Param("w") WorkflowEntity w);
     
 }
@@ -0,0 +1,35 @@
+package com.nps.devassessment.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.nps.devassessment.model.placement;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   PlacementFacade.java
+ *
+ * Purpose  : Interface for the facade over the remote placements
+ *            microservice. Lookups never block the caller; each completes
+ *            within the configured call time out.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public interface PlacementFacade
+{
+    /**
+     * Look up the placement of a work flow.
+     *
+     * @param id - work flow entity id.
+     * @param yjbYpId - yjb_yp_id of the work flow.
+     * @return future placement, completed with null when the placements
+     *         service has none, or exceptionally with a
+     *         PlacementUnavailableException when the lookup fails.
+     *
+     */
+    CompletableFuture<placement> findPlacement(Long id, Long yjbYpId);
+}
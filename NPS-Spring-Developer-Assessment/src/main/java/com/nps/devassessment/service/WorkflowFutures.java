@@ -0,0 +1,105 @@
+package com.nps.devassessment.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowFutures.java
+ *
+ * Purpose  : Class of combinators for the asynchronous work flow queries
+ *            of WorkflowRepoService. Records are matched by id; the result
+ *            keeps the order of the first query, and the record instance
+ *            from the first query in which each id appears.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public final class WorkflowFutures
+{
+
+    private WorkflowFutures()
+    {
+    }
+
+
+    /**
+     * Records present in the results of every query.
+     *
+     * @param queries - asynchronous queries, already running.
+     * @return future completed when all of the queries complete, or
+     *         exceptionally when any of them fails.
+     */
+    @SafeVarargs
+    public static CompletableFuture<List<WorkflowEntity>> intersect(
+                    CompletableFuture<List<WorkflowEntity>>... queries)
+    {
+        return CompletableFuture.allOf(queries).thenApply(ignored -> {
+
+            // Nothing to intersect.
+            if (queries.length == 0)
+            {
+                return new ArrayList<>();
+            }
+
+            Map<Long, WorkflowEntity> mapResult = byId(queries[0].join());
+
+            for (int i = 1; i < queries.length; i++)
+            {
+                mapResult.keySet().retainAll(byId(queries[i].join()).keySet());
+            }
+
+            return new ArrayList<>(mapResult.values());
+        });
+    }
+
+
+    /**
+     * Records present in the results of any query, each once.
+     *
+     * @param queries - asynchronous queries, already running.
+     * @return future completed when all of the queries complete, or
+     *         exceptionally when any of them fails.
+     */
+    @SafeVarargs
+    public static CompletableFuture<List<WorkflowEntity>> union(
+                    CompletableFuture<List<WorkflowEntity>>... queries)
+    {
+        return CompletableFuture.allOf(queries).thenApply(ignored -> {
+
+            Map<Long, WorkflowEntity> mapResult = new LinkedHashMap<>();
+
+            for (CompletableFuture<List<WorkflowEntity>> query : queries)
+            {
+                for (WorkflowEntity workflowEntity : query.join())
+                {
+                    mapResult.putIfAbsent(workflowEntity.getId(), workflowEntity);
+                }
+            }
+
+            return new ArrayList<>(mapResult.values());
+        });
+    }
+
+
+    private static Map<Long, WorkflowEntity> byId(List<WorkflowEntity> lstWorkflow)
+    {
+        Map<Long, WorkflowEntity> mapWorkflow = new LinkedHashMap<>();
+
+        for (WorkflowEntity workflowEntity : lstWorkflow)
+        {
+            mapWorkflow.putIfAbsent(workflowEntity.getId(), workflowEntity);
+        }
+
+        return mapWorkflow;
+    }
+}
@@ -0,0 +1,35 @@
+package com.nps.devassessment.service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.nps.devassessment.model.WorkflowPlacement;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowPlacementService.java
+ *
+ * Purpose  : Interface for retrieving work flow entity records enriched
+ *            with their placements from the placements service.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public interface WorkflowPlacementService
+{
+    /**
+     * Fetch the workflows of a young person, each with its placement.
+     * Placement lookups that fail or run out of time are reported per
+     * work flow rather than failing the whole result.
+     *
+     * @param yjbYpId - young person id.
+     * @return future list of enriched work flow records, in created order;
+     *         empty if the young person has no workflows.
+     *
+     */
+    CompletableFuture<List<WorkflowPlacement>> findWorkflowPlacementsByYjbYp(Long yjbYpId);
+}
@@ -1,8 +1,17 @@
 package com.nps.devassessment.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 
 import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.model.WorkflowCounts;
+import com.nps.devassessment.model.WorkflowFilter;
+import com.nps.devassessment.model.WorkflowProjection;
+import com.nps.devassessment.model.WorkflowSlice;
+import com.nps.devassessment.model.WorkflowWriteResult;
 
 /**
  * Copyright 2021
@@ -28,6 +37,17 @@ public interface WorkflowRepoService
      */
     List<WorkflowEntity> findAll();
     
+    /**
+     * Stream all workflow records, in id order, to the consumer as they
+     * are read. Records are read through a forward only cursor and are
+     * not retained once consumed.
+     * 
+     * @param consumer - receiver of each work flow entity record.
+     * @return number of work flow entity records streamed.
+     * 
+     */
+    long streamAll(Consumer<WorkflowEntity> consumer);
+    
     /**
      * Return work flow records by paging.
      * 
@@ -40,6 +60,19 @@ public interface WorkflowRepoService
     List<WorkflowEntity> findAll(Integer pageNo,
                     Integer pageSize, String sortBy);
     
+    /**
+     * Return work flow records by keyset (seek) paging. Each slice seeks
+     * past the (sort column, id) of the previous slice, so no OFFSET or
+     * COUNT query is executed.
+     * 
+     * @param after - cursor returned with the previous slice, null for the first slice.
+     * @param limit - maximum number of records in the slice
+     * @param sortBy - sort by column
+     * @return slice of work flow records and the cursor of the next slice.
+     * 
+     */
+    WorkflowSlice findAllAfter(String after, Integer limit, String sortBy);
+    
     /**
      * Fetch an individual workflow by its 'id'.
      * 
@@ -52,77 +85,288 @@ public interface WorkflowRepoService
     /**
      * Fetch an individual workflow by submitted query
      * 
-     * @param strQuery - work flow query string component.
+     * @param strQuery - work flow query string component, a WHERE clause
+     *        of comparisons of workflow columns with literal values.
      * @return list of retrieved work flow entity records.
+     * @throws IllegalArgumentException if the clause is not valid.
      * 
      */
     List<WorkflowEntity> selectWorkflowQuery(String strQuery);
     
+    /**
+     * Fetch workflows by submitted query, asynchronously on the query pool.
+     * 
+     * @param strQuery - work flow query string component.
+     * @return future list of retrieved work flow entity records; cancelling
+     *         it cancels the running statement.
+     * @throws IllegalArgumentException if the clause is not valid - it is
+     *         checked before the query is queued.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> selectWorkflowQueryAsync(String strQuery);
+    
+    /**
+     * Fetch workflows by a structured filter. The filter is compiled to
+     * parameterized JPQL, so each distinct combination of criteria is
+     * parsed once and its plan reused.
+     * 
+     * @param filter - work flow filter criteria, null for all records.
+     * @return list of retrieved work flow entity records, in id order.
+     * 
+     */
+    List<WorkflowEntity> findWorkflowByFilter(WorkflowFilter filter);
+    
+    /**
+     * Fetch selected fields of the workflows matching a structured filter.
+     * Only the selected columns are read, into projections that are never
+     * managed by the persistence context.
+     * 
+     * @param filter - filter criteria, combined with AND; null for all.
+     * @param fields - work flow entity property names to select; a name
+     *        given more than once is selected once.
+     * @param sortBy - property to order by, then by id; null for id.
+     * @param pageNo - page number, used with pageSize.
+     * @param pageSize - page size; null for all records.
+     * @return projections of the matching records.
+     * @throws IllegalArgumentException if no fields are selected, or a
+     *         field or the sort property is unknown.
+     * 
+     */
+    List<WorkflowProjection> findWorkflowFields(WorkflowFilter filter, List<String> fields, String sortBy,
+                    Integer pageNo, Integer pageSize);
+    
+    /**
+     * Fetch the version of an individual workflow by its 'id', without
+     * loading the record.
+     * 
+     * @param id - work flow entity id.
+     * @return version, or null if the record does not exist.
+     * 
+     */
+    Long findWorkflowVersion(Long id);
+    
+    /**
+     * Fetch the ids and versions of the workflows of a young person,
+     * oldest first, without loading the records.
+     * 
+     * @param yjbYpId - yjb_yp_id of the young person.
+     * @return versions keyed by work flow entity id, in list order.
+     * 
+     */
+    Map<Long, Long> findWorkflowVersionsByYjbYp(Long yjbYpId);
+    
+    /**
+     * Fetch the workflows of a young person, oldest first.
+     * 
+     * @param yjbYpId - yjb_yp_id of the young person.
+     * @return list of work flow entity records.
+     * 
+     */
+    List<WorkflowEntity> findWorkflowsByYjbYp(Long yjbYpId);
+    
+    /**
+     * Fetch workflows by workflow state.
+     * 
+     * @param workflowState - workflow_state value.
+     * @return list of work flow entity records.
+     * 
+     */
+    List<WorkflowEntity> findWorkflowsByState(String workflowState);
+    
+    /**
+     * Fetch workflows by process and, optionally, task status.
+     * 
+     * @param process - process value.
+     * @param taskStatus - task_status value, null for any task status.
+     * @return list of work flow entity records.
+     * 
+     */
+    List<WorkflowEntity> findWorkflowsByProcess(String process, String taskStatus);
+    
+    /**
+     * Fetch workflows by task status.
+     * 
+     * @param taskStatus - task_status value.
+     * @return list of work flow entity records.
+     * 
+     */
+    List<WorkflowEntity> findWorkflowsByTaskStatus(String taskStatus);
+    
+    /**
+     * Fetch workflows by filter asynchronously, on the bounded query pool.
+     * 
+     * @param filter - structured filter; unset criteria are ignored.
+     * @return future list of matching work flow entity records.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> findWorkflowByFilterAsync(WorkflowFilter filter);
+    
+    /**
+     * Fetch the workflows of a young person asynchronously.
+     * 
+     * @param yjbYpId - young person id.
+     * @return future list of work flow entity records.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> findWorkflowsByYjbYpAsync(Long yjbYpId);
+    
+    /**
+     * Fetch workflows by workflow state asynchronously.
+     * 
+     * @param workflowState - workflow_state value.
+     * @return future list of work flow entity records.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> findWorkflowsByStateAsync(String workflowState);
+    
+    /**
+     * Fetch workflows by process and, optionally, task status
+     * asynchronously.
+     * 
+     * @param process - process value.
+     * @param taskStatus - task_status value, null for any task status.
+     * @return future list of work flow entity records.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> findWorkflowsByProcessAsync(String process, String taskStatus);
+    
+    /**
+     * Fetch workflows by task status asynchronously.
+     * 
+     * @param taskStatus - task_status value.
+     * @return future list of work flow entity records.
+     * 
+     */
+    CompletableFuture<List<WorkflowEntity>> findWorkflowsByTaskStatusAsync(String taskStatus);
+    
+    /**
+     * Count workflows by workflow state, process and task status.
+     * 
+     * @return work flow counts.
+     * 
+     */
+    WorkflowCounts countWorkflows();
+    
     /**
      * Execute a full query.
      * 
-     * @param strQuery - string for full data manipulation functionality.
+     * @param strQuery - SELECT * FROM workflow statement, with an optional
+     *        WHERE clause as for selectWorkflowQuery.
      * @return list of work flow entities
+     * @throws IllegalArgumentException if the statement is not valid.
      * 
      */
     List<WorkflowEntity> fullWorkflowQuery(String strQuery);
 
     /**
-     * Create work flow entity record.
+     * Create work flow entity record, in a single statement, if no record
+     * with its id exists.
      * 
      * @param workflowEntity - work flow entity record to be created in the database.
-     * @return confirm creation of work flow entity record.
+     * @return confirm creation of work flow entity record - null if the 
+     *         record has no id or the id already exists.
      * 
      */
     WorkflowEntity createWorkflow(WorkflowEntity workflowEntity);
 
     /**
-     * Update the work flow entity record.
+     * Update the work flow entity record, by id, in a single statement.
      * 
      * @param workflowEntity - work flow entity for update.
-     * @return confirm update of work flow entity record.
+     * @return confirm update of work flow entity record, carrying the
+     *         version written - null if the record has no id or the id
+     *         does not exist.
      * 
      */
     WorkflowEntity updateWorkflow(WorkflowEntity workflowEntity);
 
+    /**
+     * Create the work flow entity record, or replace the record with the
+     * same id, in a single statement.
+     * 
+     * @param workflowEntity - work flow entity to create or replace.
+     * @return confirm upsert of work flow entity record, carrying the
+     *         version written - null if the record has no id.
+     * 
+     */
+    WorkflowEntity upsertWorkflow(WorkflowEntity workflowEntity);
+
+    /**
+     * Update a collection of work flow entity records in one transaction.
+     * Existing records are loaded with IN queries and the updates are sent
+     * to the database as JDBC batches.
+     * 
+     * @param workflowEntities - work flow entities for update.
+     * @return outcome of each submitted record, in submission order.
+     * 
+     */
+    List<WorkflowWriteResult> updateWorkflows(
+                    Iterable<? extends WorkflowEntity> workflowEntities);
+
     /**
      * Delete the work flow entity by id.
      * 
      * @param workflowEntityId - id of work flow record to be deleted.
+     * @return true if the record existed and was deleted.
      * 
      */
-    void deleteWorkflowById(Long workflowEntityId);
+    boolean deleteWorkflowById(Long workflowEntityId);
     
     /**
-     * Delete the work flow entity using the from the submitted work flow
-     * entity.
+     * Delete the work flow entity using the id from the submitted work flow
+     * entity - the primary key, not the work flow id.
      * 
      * @param workflowEntity - work flow entity record to be deleted.
+     * @return true if the record existed and was deleted.
      * 
      */
-    void deleteWorkflowByWorkFlow(WorkflowEntity workflowEntity);
+    boolean deleteWorkflowByWorkFlow(WorkflowEntity workflowEntity);
 
     /**
      * Delete the work flow record.
      * 
      * @param workflowEntity - delete work flow entity record.
+     * @return true if the record existed and was deleted.
      * 
      */
-    void deleteWorkflow(WorkflowEntity workflowEntity);
+    boolean deleteWorkflow(WorkflowEntity workflowEntity);
 
     /**
      * Delete collection of work flow entity records.
      * 
      * @param workflowEntity - collection or list of work flow entity records
      *                         to be deleted.
+     * @return number of records deleted.
      *                         
      */
-    void deleteWorkflowIterable(
+    int deleteWorkflowIterable(
                     Iterable<? extends WorkflowEntity> workflowEntity);
 
+    /**
+     * Delete work flow entity records by id with set based DELETE
+     * statements.
+     * 
+     * @param workflowEntityIds - ids of the records to be deleted.
+     * @return number of records deleted.
+     * 
+     */
+    int deleteWorkflowsById(Collection<Long> workflowEntityIds);
+
+    /**
+     * Delete the work flow entity records matching the filter. The filter
+     * is applied by the database, one batch of matching ids at a time.
+     * 
+     * @param filter - filter criteria, at least one must be set.
+     * @return number of records deleted.
+     * 
+     */
+    int deleteWorkflowsByFilter(WorkflowFilter filter);
+
     /**
      * Method to delete all of the work flow entity records.
+     * 
+     * @return number of records deleted.
      */
-    void deleteWorkflowAll();
+    int deleteWorkflowAll();
 
 }
@@ -0,0 +1,505 @@
+package com.nps.devassessment.service.impl;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.Query;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   AdHocQueryCompiler.java
+ *
+ * Purpose  : Class to compile the text of an ad hoc work flow query into a
+ *            parameterized SQL statement on the workflow table. The text is
+ *            never run as submitted: it is parsed against a small grammar
+ *
+ *              query     := [SELECT * FROM workflow [alias]] [WHERE condition]
+ *              condition := term { OR term }
+ *              term      := factor { AND factor }
+ *              factor    := NOT factor | ( condition ) | predicate
+ *              predicate := column op literal
+ *                         | column [NOT] IN ( literal {, literal} )
+ *                         | column [NOT] BETWEEN literal AND literal
+ *                         | column [NOT] LIKE string
+ *                         | column IS [NOT] NULL
+ *
+ *            where op is one of = != <> < <= > >=, columns are those of the
+ *            workflow table, optionally qualified by the alias, and
+ *            literals are quoted strings, numbers, TRUE or FALSE. Every
+ *            literal becomes a bound parameter, so the statement text is
+ *            the query shape and the statement explained by the ad hoc
+ *            query guard is the one that runs.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class AdHocQueryCompiler
+{
+    /**
+     * Columns of the workflow table.
+     */
+    private static final Set<String> COLUMNS    = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "id", "yjb_yp_id", "workflow_id", "kpf_confirmed", "workflow_state", "created", "modified",
+                    "created_by", "modified_by", "metadata", "process", "task_id", "previous_state",
+                    "task_status", "task_metadata", "version")));
+
+    private static final Set<String> OPERATORS  = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "=", "!=", "<>", "<", "<=", ">", ">=")));
+
+    /**
+     * Most values one query may bind.
+     */
+    private static final int         MAX_VALUES = 1000;
+
+    /**
+     * Deepest nesting of NOT and parentheses.
+     */
+    private static final int         MAX_DEPTH  = 16;
+
+    private static final Pattern     TOKEN      = Pattern.compile("\\s*(?:('(?:[^']|'')*')"
+                    + "|(-?\\d+(?:\\.\\d+)?)"
+                    + "|([A-Za-z_]\\w*(?:\\.[A-Za-z_]\\w*)?)"
+                    + "|(<=|>=|<>|!=|[=<>(),*]))");
+
+    private static final String      SELECT     = "SELECT * FROM workflow";
+
+
+    /**
+     * Compile the query text.
+     *
+     * @param strQuery - query text, a WHERE clause or, for a full
+     *        statement, SELECT * FROM workflow and an optional WHERE clause.
+     * @param fullStatement - whether the text is a full statement.
+     * @return compiled query; unrestricted when the text is null or blank.
+     * @throws IllegalArgumentException if the text is not a valid query.
+     */
+    AdHocQuery compile(String strQuery, boolean fullStatement)
+    {
+        Parser parser = new Parser(tokenize((strQuery != null) ? strQuery : ""));
+
+        if (fullStatement)
+        {
+            parser.selectFrom();
+        }
+
+        String strWhere = parser.where();
+
+        return new AdHocQuery(SELECT + strWhere, parser.lstValue);
+    }
+
+
+    private static List<String> tokenize(String strQuery)
+    {
+        List<String> lstToken = new ArrayList<>();
+
+        Matcher matcher = TOKEN.matcher(strQuery);
+
+        int position = 0;
+
+        // Stop at trailing white space.
+        while (!strQuery.substring(position).trim().isEmpty())
+        {
+            if (!matcher.region(position, strQuery.length()).lookingAt())
+            {
+                throw new IllegalArgumentException("Invalid ad hoc query at: "
+                                + strQuery.substring(position).trim());
+            }
+
+            lstToken.add(matcher.group().trim());
+
+            position = matcher.end();
+        }
+
+        // Return result
+        return lstToken;
+    }
+
+
+    /**
+     * Recursive descent parser over the tokens of one query, writing the
+     * SQL condition and collecting its values.
+     */
+    private static final class Parser
+    {
+        private final List<String> lstToken;
+
+        private final List<Object> lstValue = new ArrayList<>();
+
+        private String             alias    = "w";
+
+        private int                position;
+
+
+        private Parser(List<String> lstToken)
+        {
+            this.lstToken = lstToken;
+        }
+
+
+        private void selectFrom()
+        {
+            expect("SELECT");
+            expect("*");
+            expect("FROM");
+            expect("workflow");
+
+            // Optional alias.
+            if (!atEnd() && !peekIs("WHERE") && isIdentifier(peek()))
+            {
+                this.alias = next();
+            }
+        }
+
+
+        private String where()
+        {
+            if (atEnd())
+            {
+                return "";
+            }
+
+            expect("WHERE");
+
+            String strCondition = condition(0);
+
+            // Check that nothing follows the condition.
+            if (!atEnd())
+            {
+                throw invalid("end of query");
+            }
+
+            return " WHERE " + strCondition;
+        }
+
+
+        private String condition(int depth)
+        {
+            StringBuilder condition = new StringBuilder(term(depth));
+
+            while (accept("OR"))
+            {
+                condition.append(" OR ").append(term(depth));
+            }
+
+            return condition.toString();
+        }
+
+
+        private String term(int depth)
+        {
+            StringBuilder term = new StringBuilder(factor(depth));
+
+            while (accept("AND"))
+            {
+                term.append(" AND ").append(factor(depth));
+            }
+
+            return term.toString();
+        }
+
+
+        private String factor(int depth)
+        {
+            if (depth > MAX_DEPTH)
+            {
+                throw new IllegalArgumentException("Ad hoc query nested too deeply");
+            }
+
+            if (accept("NOT"))
+            {
+                return "NOT " + factor(depth + 1);
+            }
+
+            if (accept("("))
+            {
+                String strCondition = condition(depth + 1);
+
+                expect(")");
+
+                return "(" + strCondition + ")";
+            }
+
+            return predicate();
+        }
+
+
+        private String predicate()
+        {
+            String strColumn = column();
+
+            if (accept("IS"))
+            {
+                boolean not = accept("NOT");
+
+                expect("NULL");
+
+                return strColumn + (not ? " IS NOT NULL" : " IS NULL");
+            }
+
+            String strNot = accept("NOT") ? " NOT" : "";
+
+            if (accept("IN"))
+            {
+                expect("(");
+
+                StringBuilder in = new StringBuilder(strColumn).append(strNot).append(" IN (").append(literal());
+
+                while (accept(","))
+                {
+                    in.append(", ").append(literal());
+                }
+
+                expect(")");
+
+                return in.append(')').toString();
+            }
+
+            if (accept("BETWEEN"))
+            {
+                String strLow = literal();
+
+                expect("AND");
+
+                return strColumn + strNot + " BETWEEN " + strLow + " AND " + literal();
+            }
+
+            if (accept("LIKE"))
+            {
+                if (atEnd() || !peek().startsWith("'"))
+                {
+                    throw invalid("string pattern");
+                }
+
+                return strColumn + strNot + " LIKE " + literal();
+            }
+
+            // Only IN, BETWEEN and LIKE may be negated.
+            if (!strNot.isEmpty() || atEnd() || !OPERATORS.contains(peek()))
+            {
+                throw invalid("comparison");
+            }
+
+            String strOperator = next();
+
+            return strColumn + " " + ("!=".equals(strOperator) ? "<>" : strOperator) + " " + literal();
+        }
+
+
+        private String column()
+        {
+            if (atEnd() || !isIdentifier(peek()))
+            {
+                throw invalid("column");
+            }
+
+            String strName = next();
+
+            int dot = strName.indexOf('.');
+
+            // Check that a qualified column is qualified by the alias.
+            if (dot >= 0)
+            {
+                if (!strName.substring(0, dot).equalsIgnoreCase(this.alias)
+                                && !strName.substring(0, dot).equalsIgnoreCase("workflow"))
+                {
+                    throw new IllegalArgumentException("Unknown table in ad hoc query: " + strName);
+                }
+
+                strName = strName.substring(dot + 1);
+            }
+
+            String strColumn = strName.toLowerCase(Locale.ROOT);
+
+            if (!COLUMNS.contains(strColumn))
+            {
+                throw new IllegalArgumentException("Unknown column in ad hoc query: " + strName);
+            }
+
+            return strColumn;
+        }
+
+
+        /**
+         * Consume a literal and bind it.
+         *
+         * @return its parameter placeholder.
+         */
+        private String literal()
+        {
+            if (atEnd())
+            {
+                throw invalid("value");
+            }
+
+            String strToken = peek();
+
+            Object value;
+
+            if (strToken.startsWith("'"))
+            {
+                value = strToken.substring(1, strToken.length() - 1).replace("''", "'");
+            }
+            else if (Character.isDigit(strToken.charAt(0)) || (strToken.charAt(0) == '-'))
+            {
+                value = (strToken.indexOf('.') >= 0) ? new BigDecimal(strToken) : (Object) Long.valueOf(strToken);
+            }
+            else if (strToken.equalsIgnoreCase("TRUE") || strToken.equalsIgnoreCase("FALSE"))
+            {
+                value = Boolean.valueOf(strToken);
+            }
+            else
+            {
+                throw invalid("value");
+            }
+
+            if (this.lstValue.size() >= MAX_VALUES)
+            {
+                throw new IllegalArgumentException("Ad hoc query binds more than " + MAX_VALUES + " values");
+            }
+
+            next();
+
+            this.lstValue.add(value);
+
+            return "?" + this.lstValue.size();
+        }
+
+
+        private static boolean isIdentifier(String strToken)
+        {
+            return Character.isLetter(strToken.charAt(0)) || (strToken.charAt(0) == '_');
+        }
+
+
+        private boolean atEnd()
+        {
+            return this.position >= this.lstToken.size();
+        }
+
+
+        private String peek()
+        {
+            return this.lstToken.get(this.position);
+        }
+
+
+        private boolean peekIs(String strToken)
+        {
+            return !atEnd() && peek().equalsIgnoreCase(strToken);
+        }
+
+
+        private String next()
+        {
+            return this.lstToken.get(this.position++);
+        }
+
+
+        private boolean accept(String strToken)
+        {
+            if (peekIs(strToken))
+            {
+                this.position++;
+
+                return true;
+            }
+
+            return false;
+        }
+
+
+        private void expect(String strToken)
+        {
+            if (!accept(strToken))
+            {
+                throw invalid(strToken);
+            }
+        }
+
+
+        private IllegalArgumentException invalid(String strExpected)
+        {
+            return new IllegalArgumentException("Invalid ad hoc query: expected " + strExpected
+                            + (atEnd() ? " at end" : " at '" + peek() + "'"));
+        }
+    }
+
+
+    /**
+     * Compiled statement and the values to bind to it.
+     */
+    static final class AdHocQuery
+    {
+        private final String       strSql;
+
+        private final List<Object> lstValue;
+
+
+        AdHocQuery(String strSql, List<Object> lstValue)
+        {
+            this.strSql = strSql;
+            this.lstValue = Collections.unmodifiableList(lstValue);
+        }
+
+
+        /**
+         * SQL statement with numbered parameters ?1, ?2 ... in both JPA
+         * and H2 syntax.
+         *
+         * @return statement.
+         */
+        String getSql()
+        {
+            return strSql;
+        }
+
+
+        List<Object> getValues()
+        {
+            return lstValue;
+        }
+
+
+        /**
+         * Whether the query selects every record.
+         *
+         * @return true when there is no WHERE clause.
+         */
+        boolean isUnrestricted()
+        {
+            return SELECT.equals(strSql);
+        }
+
+
+        /**
+         * Bind the values to a query created from the statement.
+         *
+         * @param query - query to bind.
+         * @return the query.
+         */
+        <Q extends Query> Q bind(Q query)
+        {
+            for (int i = 0; i < this.lstValue.size(); i++)
+            {
+                query.setParameter(i + 1, this.lstValue.get(i));
+            }
+
+            return query;
+        }
+    }
+}
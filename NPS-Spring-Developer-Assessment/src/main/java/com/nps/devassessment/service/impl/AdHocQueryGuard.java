@@ -0,0 +1,233 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.persistence.Query;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.exception.QueryRejectedException;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   AdHocQueryGuard.java
+ *
+ * Purpose  : Class to protect the connection pool from runaway ad hoc
+ *            queries.
+ *
+ *            Before a query runs its cost is estimated from the H2 EXPLAIN
+ *            plan of its compiled statement (see AdHocQueryCompiler), with
+ *            its values bound, as the product of the estimated row counts of the tables
+ *            it scans in full - so a cross join of two scanned tables costs
+ *            the product of their sizes, and index lookups cost nothing
+ *            extra. Queries costing more than
+ *            workflow.adhoc.reject-cost are refused; queries costing more
+ *            than workflow.adhoc.heavy-cost wait, for at most
+ *            workflow.adhoc.queue-timeout-ms, for one of
+ *            workflow.adhoc.heavy-permits slots, so only a few can hold
+ *            connections at once.
+ *
+ *            Admitted queries run with a statement time out of
+ *            workflow.adhoc.timeout-seconds and fail when they return more
+ *            than workflow.adhoc.max-rows rows.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class AdHocQueryGuard
+{
+    private static final Logger  log          = LoggerFactory.getLogger(AdHocQueryGuard.class);
+
+    private static final String  TIMEOUT_HINT = "javax.persistence.query.timeout";
+
+    /**
+     * Full scan in an H2 plan, e.g. PUBLIC.WORKFLOW.tableScan.
+     */
+    private static final Pattern TABLE_SCAN   = Pattern.compile("/\\*\\s*(\\w+)\\.(\\w+)\\.tableScan");
+
+    private final JdbcTemplate    jdbcTemplate;
+
+    private final int             timeoutSeconds;
+
+    private final int             maxRows;
+
+    private final long            rejectCost;
+
+    private final long            heavyCost;
+
+    private final long            queueTimeoutMs;
+
+    private final Semaphore       heavyPermits;
+
+
+    AdHocQueryGuard(JdbcTemplate jdbcTemplate,
+                    @Value("${workflow.adhoc.timeout-seconds:30}") int timeoutSeconds,
+                    @Value("${workflow.adhoc.max-rows:10000}") int maxRows,
+                    @Value("${workflow.adhoc.reject-cost:100000000}") long rejectCost,
+                    @Value("${workflow.adhoc.heavy-cost:1000000}") long heavyCost,
+                    @Value("${workflow.adhoc.heavy-permits:2}") int heavyPermits,
+                    @Value("${workflow.adhoc.queue-timeout-ms:5000}") long queueTimeoutMs)
+    {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutSeconds = timeoutSeconds;
+        this.maxRows = maxRows;
+        this.rejectCost = rejectCost;
+        this.heavyCost = heavyCost;
+        this.queueTimeoutMs = queueTimeoutMs;
+        this.heavyPermits = new Semaphore(heavyPermits, true);
+    }
+
+
+    /**
+     * Admit the query by its estimated cost, and run it. Call it outside
+     * any transaction, and open the transaction in the query: the estimate
+     * borrows a connection only per statement, and a query waiting for a
+     * slot then holds none.
+     *
+     * @param adHocQuery - compiled statement, for the plan.
+     * @param query - query running that statement.
+     * @return query result.
+     * @throws QueryRejectedException when the query is too expensive, or
+     *         no slot for an expensive query came free in time.
+     */
+    <T> T admit(AdHocQueryCompiler.AdHocQuery adHocQuery, Supplier<T> query)
+    {
+        long cost = estimateCost(adHocQuery);
+
+        // Check that the query is affordable at all.
+        if (cost > this.rejectCost)
+        {
+            throw new QueryRejectedException("Query estimated to examine " + cost
+                            + " rows, over the limit of " + this.rejectCost, false);
+        }
+
+        if (cost <= this.heavyCost)
+        {
+            return query.get();
+        }
+
+        // Expensive - wait for a slot.
+        try
+        {
+            if (!this.heavyPermits.tryAcquire(this.queueTimeoutMs, TimeUnit.MILLISECONDS))
+            {
+                throw new QueryRejectedException("Too many expensive queries running", true);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new QueryRejectedException("Interrupted waiting to run an expensive query", true);
+        }
+
+        try
+        {
+            return query.get();
+        }
+        finally
+        {
+            this.heavyPermits.release();
+        }
+    }
+
+
+    /**
+     * Apply the statement time out and row cap to the query. One row over
+     * the cap is fetched, so checkRows can tell a full result from an
+     * oversized one.
+     *
+     * @param query - query to limit.
+     * @return the query.
+     */
+    Query limit(Query query)
+    {
+        return query.setHint(TIMEOUT_HINT, this.timeoutSeconds * 1000)
+                        .setMaxResults(this.maxRows + 1);
+    }
+
+
+    /**
+     * Check the result of a limited query against the row cap.
+     *
+     * @param lstResult - query result.
+     * @return the result.
+     * @throws QueryRejectedException when over the cap.
+     */
+    <T> List<T> checkRows(List<T> lstResult)
+    {
+        if ((lstResult != null) && (lstResult.size() > this.maxRows))
+        {
+            throw new QueryRejectedException("Query returned more than " + this.maxRows + " rows", false);
+        }
+
+        // Return result
+        return lstResult;
+    }
+
+
+    /**
+     * Estimated rows examined by the statement.
+     *
+     * @param adHocQuery - compiled statement.
+     * @return estimate; 0 when the statement cannot be explained, in which
+     *         case running it will fail in the same way.
+     */
+    long estimateCost(AdHocQueryCompiler.AdHocQuery adHocQuery)
+    {
+        String strPlan;
+
+        try
+        {
+            strPlan = String.join("\n", this.jdbcTemplate.queryForList("EXPLAIN " + adHocQuery.getSql(),
+                            String.class, adHocQuery.getValues().toArray()));
+        }
+        catch (DataAccessException e)
+        {
+            log.debug("Cannot explain ad hoc query: {}", e.getMessage());
+
+            return 0;
+        }
+
+        long cost = 1;
+
+        Matcher matcher = TABLE_SCAN.matcher(strPlan);
+
+        while (matcher.find())
+        {
+            long rows = rowEstimate(matcher.group(1), matcher.group(2));
+
+            cost = (cost > Long.MAX_VALUE / rows) ? Long.MAX_VALUE : cost * rows;
+        }
+
+        // Return result
+        return cost;
+    }
+
+
+    private long rowEstimate(String strSchema, String strTable)
+    {
+        List<Long> lstEstimate = this.jdbcTemplate.queryForList(
+                        "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES"
+                                        + " WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ?",
+                        Long.class, strSchema.toUpperCase(Locale.ROOT), strTable.toUpperCase(Locale.ROOT));
+
+        return (lstEstimate.isEmpty() || (lstEstimate.get(0) == null)) ? 1 : Math.max(1, lstEstimate.get(0));
+    }
+}
@@ -0,0 +1,53 @@
+package com.nps.devassessment.service.impl;
+
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   AfterCommit.java
+ *
+ * Purpose  : Class to defer in-memory bookkeeping (caches, counters) until
+ *            the current transaction has committed, so a rolled back write
+ *            is never reflected in memory.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+final class AfterCommit
+{
+
+    private AfterCommit()
+    {
+    }
+
+
+    /**
+     * Run the action after the current transaction commits, or now when no
+     * transaction is active.
+     *
+     * @param action - action to run.
+     */
+    static void run(Runnable action)
+    {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+        {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    action.run();
+                }
+            });
+        }
+        else
+        {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nps.devassessment.model.placement;
+import com.nps.devassessment.service.PlacementFacade;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   CachingPlacementFacade.java
+ *
+ * Purpose  : Class to cache placement lookups in front of the HTTP
+ *            placements facade, keyed by (id, yjb_yp_id). Entries are
+ *            evicted by size and by age since they were loaded, and hit,
+ *            miss and eviction counts are published as 'cache.*' metrics
+ *            under the name 'placementById'.
+ *
+ *            The cache holds the lookup in flight, not just its result, so
+ *            concurrent misses for the same key share one outbound call
+ *            and every waiter receives its result. Each waiter is handed its
+ *            own future, so a waiter cancelling its lookup does not fail the
+ *            others; the shared call still ends by its call time out.
+ *            Failed lookups and lookups that find no placement are not
+ *            kept, so they are retried by the next caller.
+ *
+ *            Callers share the cached placement instance and must not
+ *            modify it.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Primary
+@Service
+public class CachingPlacementFacade implements PlacementFacade
+{
+    static final String CACHE_NAME = "placementById";
+
+    private final AsyncLoadingCache<PlacementKey, placement> cache;
+
+
+    CachingPlacementFacade(PlacementFacadeImpl placementFacade,
+                    @Value("${placement.cache.maximum-size:10000}") long maximumSize,
+                    @Value("${placement.cache.expire-after-write-seconds:60}") long expireAfterWriteSeconds,
+                    MeterRegistry meterRegistry)
+    {
+        this.cache = Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                        .recordStats()
+                        .buildAsync((key, executor) -> placementFacade.findPlacement(key.id, key.yjbYpId));
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache.synchronous(), CACHE_NAME);
+    }
+
+
+    /**
+     * Method to look up the placement of a work flow through the cache.
+     *
+     */
+    @Override
+    public CompletableFuture<placement> findPlacement(Long id, Long yjbYpId)
+    {
+        return this.cache.get(new PlacementKey(id, yjbYpId)).copy();
+    }
+
+
+    /**
+     * Cache key - work flow id and yjb_yp_id.
+     */
+    private static final class PlacementKey
+    {
+        private final Long id;
+
+        private final Long yjbYpId;
+
+
+        private PlacementKey(Long id, Long yjbYpId)
+        {
+            this.id = id;
+            this.yjbYpId = yjbYpId;
+        }
+
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj)
+            {
+                return true;
+            }
+
+            if (!(obj instanceof PlacementKey))
+            {
+                return false;
+            }
+
+            PlacementKey other = (PlacementKey) obj;
+
+            return Objects.equals(this.id, other.id) && Objects.equals(this.yjbYpId, other.yjbYpId);
+        }
+
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(this.id, this.yjbYpId);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.nps.devassessment.service.impl;
+
+import java.net.SocketTimeoutException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import com.nps.devassessment.exception.PlacementUnavailableException;
+import com.nps.devassessment.model.placement;
+import com.nps.devassessment.service.PlacementFacade;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   PlacementFacadeImpl.java
+ *
+ * Purpose  : Class implementing the placements facade over HTTP.
+ *
+ *            Calls are made through a pooled Apache HttpClient connection
+ *            manager with connect, connection lease and read time outs, so
+ *            connections are reused and no socket operation waits without
+ *            limit. Calls run on a dedicated bulkhead pool: at most
+ *            placement.client.max-concurrent-calls run at once, a bounded
+ *            number wait, and further calls fail at once rather than queue
+ *            behind a slow service. Every lookup is also bounded end to end
+ *            by placement.client.call-timeout-ms. A lookup that times out or
+ *            is cancelled by its caller gives up its bulkhead task: a queued
+ *            call never runs and a running one is interrupted.
+ *
+ *            Callers receive a CompletableFuture, so a servlet thread is
+ *            never held by a remote call. Bulkhead activity is published as
+ *            'executor.*' metrics under the name 'placementBulkhead'.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Service
+public class PlacementFacadeImpl implements PlacementFacade, DisposableBean
+{
+    static final String BULKHEAD_NAME = "placementBulkhead";
+
+    private final String                 placementUrl;
+
+    private final long                   callTimeoutMs;
+
+    private final CloseableHttpClient    httpClient;
+
+    private final RestTemplate           restTemplate;
+
+    private final ThreadPoolTaskExecutor bulkhead;
+
+
+    PlacementFacadeImpl(@Value("${placement.service.base-url}") String baseUrl,
+                    @Value("${placement.endpoint.get}") String endpoint,
+                    @Value("${placement.client.connect-timeout-ms:1000}") int connectTimeoutMs,
+                    @Value("${placement.client.connection-request-timeout-ms:500}") int connectionRequestTimeoutMs,
+                    @Value("${placement.client.read-timeout-ms:2000}") int readTimeoutMs,
+                    @Value("${placement.client.call-timeout-ms:3000}") long callTimeoutMs,
+                    @Value("${placement.client.max-connections:20}") int maxConnections,
+                    @Value("${placement.client.max-concurrent-calls:20}") int maxConcurrentCalls,
+                    @Value("${placement.client.queue-capacity:50}") int queueCapacity,
+                    MeterRegistry meterRegistry)
+    {
+        this.placementUrl = baseUrl + endpoint;
+        this.callTimeoutMs = callTimeoutMs;
+
+        // Pooled connections - every call goes to the one placements host.
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                        .setConnectTimeout(connectTimeoutMs)
+                        .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                        .setSocketTimeout(readTimeoutMs)
+                        .build();
+
+        this.httpClient = HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .setDefaultRequestConfig(requestConfig)
+                        .evictExpiredConnections()
+                        .evictIdleConnections(30, TimeUnit.SECONDS)
+                        .build();
+
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(this.httpClient));
+
+        this.bulkhead = new ThreadPoolTaskExecutor();
+        this.bulkhead.setCorePoolSize(maxConcurrentCalls);
+        this.bulkhead.setMaxPoolSize(maxConcurrentCalls);
+        this.bulkhead.setQueueCapacity(queueCapacity);
+        this.bulkhead.setThreadNamePrefix(BULKHEAD_NAME + "-");
+        this.bulkhead.initialize();
+
+        new ExecutorServiceMetrics(this.bulkhead.getThreadPoolExecutor(), BULKHEAD_NAME, Tags.empty())
+                        .bindTo(meterRegistry);
+    }
+
+
+    /**
+     * Method to look up the placement of a work flow on the bulkhead pool.
+     *
+     */
+    @Override
+    public CompletableFuture<placement> findPlacement(Long id, Long yjbYpId)
+    {
+        Map<String, Object> uriVariables = new HashMap<>();
+        uriVariables.put("id", id);
+        uriVariables.put("yjb_yp_id", yjbYpId);
+
+        CompletableFuture<placement> lookup = new CompletableFuture<>();
+
+        Future<?> task;
+
+        try
+        {
+            task = this.bulkhead.submit(() -> {
+
+                try
+                {
+                    lookup.complete(call(uriVariables));
+                }
+                catch (RuntimeException e)
+                {
+                    lookup.completeExceptionally(e);
+                }
+            });
+        }
+        catch (RejectedExecutionException e)
+        {
+            // Bulkhead full - fail fast.
+            CompletableFuture<placement> rejected = new CompletableFuture<>();
+
+            rejected.completeExceptionally(new PlacementUnavailableException(
+                            "Placement service concurrency limit reached", false, e));
+
+            return rejected;
+        }
+
+        CompletableFuture<placement> result = lookup.orTimeout(this.callTimeoutMs, TimeUnit.MILLISECONDS)
+                        .exceptionally(e -> {
+                            throw new CompletionException(unavailable(e, id, yjbYpId));
+                        });
+
+        // Timed out or cancelled - give up the call.
+        result.whenComplete((found, e) -> {
+
+            if (e != null)
+            {
+                task.cancel(true);
+            }
+        });
+
+        // Return result
+        return result;
+    }
+
+
+    private placement call(Map<String, Object> uriVariables)
+    {
+        try
+        {
+            return this.restTemplate.getForObject(this.placementUrl, placement.class, uriVariables);
+        }
+        catch (HttpClientErrorException.NotFound e)
+        {
+            // No placement for the work flow.
+            return null;
+        }
+    }
+
+
+    private static PlacementUnavailableException unavailable(Throwable e, Long id, Long yjbYpId)
+    {
+        Throwable cause = (e instanceof CompletionException) && (e.getCause() != null) ? e.getCause() : e;
+
+        if (cause instanceof PlacementUnavailableException)
+        {
+            return (PlacementUnavailableException) cause;
+        }
+
+        // A read time out surfaces as an I/O error from the RestTemplate.
+        boolean bTimedOut = (cause instanceof TimeoutException)
+                        || ((cause instanceof ResourceAccessException)
+                                        && (cause.getCause() instanceof SocketTimeoutException));
+
+        return new PlacementUnavailableException("Placement lookup failed for workflow " + id + ", yjb_yp_id "
+                        + yjbYpId + ": " + cause.getMessage(), bTimedOut, cause);
+    }
+
+
+    @Override
+    public void destroy() throws Exception
+    {
+        this.bulkhead.shutdown();
+        this.httpClient.close();
+    }
+}
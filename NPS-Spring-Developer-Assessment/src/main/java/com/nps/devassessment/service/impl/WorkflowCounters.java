@@ -0,0 +1,286 @@
+package com.nps.devassessment.service.impl;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.model.WorkflowCounts;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowCounters.java
+ *
+ * Purpose  : Class to maintain in-memory counts of the work flow entity
+ *            records by workflow_state, process and task_status, so the
+ *            counts are answered without reading the table.
+ *
+ *            The service write methods apply each change as a delta after
+ *            commit. Where the previous values of a changed or deleted row
+ *            are not known (bulk deletes, or an update of a row that is not
+ *            cached) the counters are marked stale instead. A scheduled task
+ *            reconciles the counters against GROUP BY queries whenever they
+ *            are stale, and at a longer fixed interval regardless, to correct
+ *            any drift from writes made outside the service.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class WorkflowCounters
+{
+    private static final Logger log = LoggerFactory.getLogger(WorkflowCounters.class);
+
+    @PersistenceContext()
+    private EntityManager   em;
+
+    @Value("${workflow.counts.reconcile-interval-ms:300000}")
+    private long            reconcileIntervalMs;
+
+    private volatile Tally  tally = new Tally();
+
+    private volatile long   reconciledAt;
+
+    private volatile boolean stale = true;
+
+    /**
+     * Incremented by every write, so a reconciliation can tell whether
+     * writes ran while it was reading.
+     */
+    private final AtomicLong writeSequence = new AtomicLong();
+
+
+    /**
+     * Count a created record.
+     *
+     * @param workflowEntity - created work flow entity record.
+     */
+    void created(WorkflowEntity workflowEntity)
+    {
+        Values values = new Values(workflowEntity);
+
+        AfterCommit.run(() -> apply(values, 1));
+    }
+
+
+    /**
+     * Move a record from its previous values to its new values.
+     *
+     * @param previous - record before the write, null if unknown.
+     * @param current - record after the write.
+     */
+    void updated(WorkflowEntity previous, WorkflowEntity current)
+    {
+        // Previous values unknown - the counters must be reconciled.
+        if (previous == null)
+        {
+            markStale();
+            return;
+        }
+
+        Values oldValues = new Values(previous);
+        Values newValues = new Values(current);
+
+        AfterCommit.run(() -> {
+            apply(oldValues, -1);
+            apply(newValues, 1);
+        });
+    }
+
+
+    /**
+     * Remove a deleted record from the counts.
+     *
+     * @param previous - record before the delete, null if unknown.
+     */
+    void deleted(WorkflowEntity previous)
+    {
+        // Deleted values unknown - the counters must be reconciled.
+        if (previous == null)
+        {
+            markStale();
+            return;
+        }
+
+        Values values = new Values(previous);
+
+        AfterCommit.run(() -> apply(values, -1));
+    }
+
+
+    /**
+     * Flag the counters for reconciliation after a write whose effect on
+     * the counts is not known.
+     */
+    void markStale()
+    {
+        this.writeSequence.incrementAndGet();
+
+        AfterCommit.run(() -> this.stale = true);
+    }
+
+
+    /**
+     * Current counts - answered from memory.
+     *
+     * @return work flow counts.
+     */
+    WorkflowCounts snapshot()
+    {
+        Tally current = this.tally;
+
+        return new WorkflowCounts(current.total.get(),
+                        copy(current.byWorkflowState), copy(current.byProcess), copy(current.byTaskStatus),
+                        (this.reconciledAt > 0) ? new Timestamp(this.reconciledAt) : null,
+                        this.stale);
+    }
+
+
+    /**
+     * Reconcile the counters with the database when they are stale, or when
+     * the reconcile interval has passed.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${workflow.counts.check-interval-ms:5000}")
+    public void reconcileIfDue()
+    {
+        if ((this.stale) || (System.currentTimeMillis() - this.reconciledAt >= this.reconcileIntervalMs))
+        {
+            reconcile();
+        }
+    }
+
+
+    /**
+     * Rebuild the counters from GROUP BY queries.
+     */
+    void reconcile()
+    {
+        long sequence = this.writeSequence.get();
+
+        this.stale = false;
+
+        Tally rebuilt = new Tally();
+
+        load(rebuilt.byWorkflowState, "workflowState");
+        load(rebuilt.byProcess, "process");
+        load(rebuilt.byTaskStatus, "taskStatus");
+
+        rebuilt.total.set(rebuilt.byWorkflowState.values().stream().mapToLong(AtomicLong::get).sum());
+
+        this.tally = rebuilt;
+        this.reconciledAt = System.currentTimeMillis();
+
+        // Writes during the queries may be missing from the new counts.
+        if (this.writeSequence.get() != sequence)
+        {
+            this.stale = true;
+        }
+
+        log.debug("Reconciled workflow counts: {} records", rebuilt.total.get());
+    }
+
+
+    private void load(ConcurrentMap<String, AtomicLong> counts, String property)
+    {
+        List<Object[]> lstRow = em.createQuery("SELECT w." + property + ", COUNT(w) FROM WorkflowEntity w GROUP BY w."
+                        + property, Object[].class).getResultList();
+
+        for (Object[] row : lstRow)
+        {
+            counts.put(key((String) row[0]), new AtomicLong((Long) row[1]));
+        }
+    }
+
+
+    private void apply(Values values, int delta)
+    {
+        this.writeSequence.incrementAndGet();
+
+        Tally current = this.tally;
+
+        current.total.addAndGet(delta);
+        add(current.byWorkflowState, values.workflowState, delta);
+        add(current.byProcess, values.process, delta);
+        add(current.byTaskStatus, values.taskStatus, delta);
+    }
+
+
+    private static void add(ConcurrentMap<String, AtomicLong> counts, String value, int delta)
+    {
+        counts.computeIfAbsent(key(value), k -> new AtomicLong()).addAndGet(delta);
+    }
+
+
+    private static String key(String value)
+    {
+        return (value != null) ? value : WorkflowCounts.NULL_KEY;
+    }
+
+
+    private static Map<String, Long> copy(ConcurrentMap<String, AtomicLong> counts)
+    {
+        Map<String, Long> copy = new TreeMap<>();
+
+        counts.forEach((key, count) -> {
+            if (count.get() != 0)
+            {
+                copy.put(key, count.get());
+            }
+        });
+
+        return copy;
+    }
+
+
+    /**
+     * One generation of counters - replaced as a whole on reconciliation.
+     */
+    private static final class Tally
+    {
+        private final AtomicLong                       total           = new AtomicLong();
+
+        private final ConcurrentMap<String, AtomicLong> byWorkflowState = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, AtomicLong> byProcess       = new ConcurrentHashMap<>();
+
+        private final ConcurrentMap<String, AtomicLong> byTaskStatus    = new ConcurrentHashMap<>();
+    }
+
+
+    /**
+     * Counted column values of one record, captured at write time.
+     */
+    private static final class Values
+    {
+        private final String workflowState;
+
+        private final String process;
+
+        private final String taskStatus;
+
+
+        private Values(WorkflowEntity workflowEntity)
+        {
+            this.workflowState = workflowEntity.getWorkflowState();
+            this.process = workflowEntity.getProcess();
+            this.taskStatus = workflowEntity.getTaskStatus();
+        }
+    }
+}
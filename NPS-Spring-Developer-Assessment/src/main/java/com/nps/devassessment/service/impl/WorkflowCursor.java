@@ -0,0 +1,144 @@
+package com.nps.devassessment.service.impl;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowCursor.java
+ *
+ * Purpose  : Class to encode and decode the opaque keyset paging cursor.
+ *            The cursor records the sort column together with the sort
+ *            value and id of the last record read, so the next slice can
+ *            seek on (sortColumn, id) rather than use an OFFSET.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+final class WorkflowCursor
+{
+    private static final String SEPARATOR = "\n";
+
+    private static final String VALUE_PREFIX = "=";
+
+    private final String sortBy;
+
+    private final Long   lastId;
+
+    private final Object lastValue;
+
+
+    WorkflowCursor(String sortBy, Long lastId, Object lastValue)
+    {
+        this.sortBy = sortBy;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+
+    String getSortBy()
+    {
+        return sortBy;
+    }
+
+
+    Long getLastId()
+    {
+        return lastId;
+    }
+
+
+    /**
+     * Sort value of the last record read - null when the column was null.
+     *
+     * @return last sort value.
+     */
+    Object getLastValue()
+    {
+        return lastValue;
+    }
+
+
+    /**
+     * Encode the cursor as a URL safe token.
+     *
+     * @return opaque cursor token.
+     */
+    String encode()
+    {
+        String value = (lastValue != null) ? VALUE_PREFIX + lastValue : "";
+
+        String raw = sortBy + SEPARATOR + lastId + SEPARATOR + value;
+
+        return Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    /**
+     * Decode a cursor token previously produced by {@link #encode()}.
+     *
+     * @param token - opaque cursor token.
+     * @param sortBy - sort column of the current request.
+     * @param sortType - java type of the sort column.
+     * @return decoded cursor.
+     * @throws IllegalArgumentException if the token is malformed or was
+     *         issued for a different sort column.
+     */
+    static WorkflowCursor decode(String token, String sortBy, Class<?> sortType)
+    {
+        String raw;
+
+        try
+        {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IllegalArgumentException("Malformed cursor: " + token, e);
+        }
+
+        String[] parts = raw.split(SEPARATOR, 3);
+
+        // Check the cursor has all components and matches the sort column.
+        if ((parts.length != 3) || (!parts[0].equals(sortBy)))
+        {
+            throw new IllegalArgumentException("Cursor does not match sort column " + sortBy);
+        }
+
+        Long lastId = Long.valueOf(parts[1]);
+
+        Object lastValue = null;
+
+        if (parts[2].startsWith(VALUE_PREFIX))
+        {
+            lastValue = parseValue(parts[2].substring(VALUE_PREFIX.length()), sortType);
+        }
+
+        return new WorkflowCursor(sortBy, lastId, lastValue);
+    }
+
+
+    private static Object parseValue(String value, Class<?> sortType)
+    {
+        if (Long.class.equals(sortType))
+        {
+            return Long.valueOf(value);
+        }
+        else if (Boolean.class.equals(sortType))
+        {
+            return Boolean.valueOf(value);
+        }
+        else if (Timestamp.class.equals(sortType))
+        {
+            return Timestamp.valueOf(value);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,183 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nps.devassessment.entity.WorkflowEntity;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowEntityCache.java
+ *
+ * Purpose  : Class to hold a bounded, in-process read-through cache of
+ *            work flow entity records keyed by id. Entries are evicted by
+ *            size and by age since they were written, and hit, miss and
+ *            eviction counts are published as 'cache.*' metrics under the
+ *            name 'workflowById'.
+ *
+ *            Callers always receive their own copy of a cached record, so
+ *            changes to a returned entity never leak into the cache. Writes
+ *            through the service refresh or invalidate the affected ids; when
+ *            the write runs in a transaction the cache is updated again after
+ *            commit, so a concurrent reader cannot re-cache the old row.
+ *
+ *            The Hibernate second level cache (region 'workflow') sits
+ *            behind this cache and serves the finders and the query cache.
+ *            This cache is kept in front of it for findWorkflowById, which
+ *            then needs no session, transaction or connection at all and
+ *            hands out private copies rather than hydrating managed ones.
+ *            Hibernate invalidates its own regions on every JPA, JPQL bulk
+ *            and native write; this cache is invalidated by the service on
+ *            the same write paths (written, evict, evictAll). A bulk or
+ *            native write only clears the Hibernate entity region when the
+ *            statement runs, so a reader loading the record before commit
+ *            can put the old row back there; the entity region entry is
+ *            therefore evicted again after commit with this one. Writes made
+ *            outside WorkflowRepoService, such as WorkflowRepo.save in the
+ *            tests controller, are only seen here once the entry expires.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class WorkflowEntityCache
+{
+    static final String CACHE_NAME = "workflowById";
+
+    private final Cache<Long, WorkflowEntity> cache;
+
+    private final org.hibernate.Cache         entityRegion;
+
+
+    WorkflowEntityCache(@Value("${workflow.cache.maximum-size:10000}") long maximumSize,
+                    @Value("${workflow.cache.expire-after-write-seconds:300}") long expireAfterWriteSeconds,
+                    MeterRegistry meterRegistry, EntityManagerFactory entityManagerFactory)
+    {
+        this.entityRegion = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+
+        this.cache = Caffeine.newBuilder()
+                        .maximumSize(maximumSize)
+                        .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                        .recordStats()
+                        .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, this.cache, CACHE_NAME);
+    }
+
+
+    /**
+     * Return the record for the id, loading and caching it on a miss.
+     * Concurrent misses for the same id share a single load. Records that
+     * do not exist are not cached.
+     *
+     * @param id - work flow entity id.
+     * @param loader - loads the record from the database, may return null.
+     * @return copy of the record, or null if the id is null or does not exist.
+     */
+    WorkflowEntity get(Long id, Function<Long, WorkflowEntity> loader)
+    {
+        // No id - no record; the cache does not take null keys.
+        if (id == null)
+        {
+            return null;
+        }
+
+        WorkflowEntity workflowEntity = this.cache.get(id, loader);
+
+        return (workflowEntity != null) ? new WorkflowEntity(workflowEntity) : null;
+    }
+
+
+    /**
+     * Return the cached record for the id without loading it.
+     *
+     * @param id - work flow entity id.
+     * @return copy of the cached record, or null if not cached.
+     */
+    WorkflowEntity peek(Long id)
+    {
+        WorkflowEntity workflowEntity = (id != null) ? this.cache.getIfPresent(id) : null;
+
+        return (workflowEntity != null) ? new WorkflowEntity(workflowEntity) : null;
+    }
+
+
+    /**
+     * Refresh the cache with a record that has been written.
+     *
+     * @param workflowEntity - written work flow entity record.
+     */
+    void written(WorkflowEntity workflowEntity)
+    {
+        if ((workflowEntity == null) || (workflowEntity.getId() == null))
+        {
+            return;
+        }
+
+        Long id = workflowEntity.getId();
+
+        WorkflowEntity copy = new WorkflowEntity(workflowEntity);
+
+        // Until commit other readers must go to the database.
+        this.cache.invalidate(id);
+
+        AfterCommit.run(() -> {
+
+            this.entityRegion.evictEntityData(WorkflowEntity.class, id);
+            this.cache.put(id, copy);
+        });
+    }
+
+
+    /**
+     * Invalidate the record for an id that has been deleted or changed.
+     *
+     * @param id - work flow entity id.
+     */
+    void evict(Long id)
+    {
+        if (id == null)
+        {
+            return;
+        }
+
+        this.cache.invalidate(id);
+
+        AfterCommit.run(() -> {
+
+            this.entityRegion.evictEntityData(WorkflowEntity.class, id);
+            this.cache.invalidate(id);
+        });
+    }
+
+
+    /**
+     * Invalidate every cached record.
+     */
+    void evictAll()
+    {
+        this.cache.invalidateAll();
+
+        AfterCommit.run(() -> {
+
+            this.entityRegion.evictEntityData(WorkflowEntity.class);
+            this.cache.invalidateAll();
+        });
+    }
+}
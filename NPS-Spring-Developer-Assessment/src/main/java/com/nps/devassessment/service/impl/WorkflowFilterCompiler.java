@@ -0,0 +1,271 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.Query;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.nps.devassessment.model.WorkflowFilter;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowFilterCompiler.java
+ *
+ * Purpose  : Class to compile a structured work flow filter into a
+ *            parameterized JPQL WHERE clause. The clause text depends only
+ *            on which criteria are set (the query shape), never on their
+ *            values, so identical shapes produce identical query text and
+ *            share the Hibernate query plan and the database statement
+ *            plan. Compiled clauses are held in a bounded LRU cache keyed
+ *            by shape.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class WorkflowFilterCompiler
+{
+    /**
+     * Entity properties that may be used in null / not null checks.
+     */
+    private static final Set<String> NULLABLE_FIELDS = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+                    "workflowId", "workflowState", "created", "modified", "createdBy", "modifiedBy",
+                    "metadata", "process", "taskId", "previousState", "taskStatus", "taskMetadata")));
+
+    private final Map<String, String> shapeCache;
+
+
+    WorkflowFilterCompiler(@Value("${workflow.query.shape-cache-size:256}") int maxShapes)
+    {
+        this.shapeCache = Collections.synchronizedMap(new LinkedHashMap<String, String>(16, 0.75f, true)
+        {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest)
+            {
+                return size() > maxShapes;
+            }
+        });
+    }
+
+
+    /**
+     * Compile the filter to a WHERE clause (aliased 'w') and its
+     * parameters.
+     *
+     * @param filter - work flow filter, may be null.
+     * @return compiled filter.
+     * @throws IllegalArgumentException if a null check names an unknown
+     *         property.
+     */
+    CompiledFilter compile(WorkflowFilter filter)
+    {
+        Map<String, Object> parameters = new LinkedHashMap<>();
+
+        // Null filter - no restriction.
+        if (filter == null)
+        {
+            return new CompiledFilter("", parameters);
+        }
+
+        // Collect the bound values - the parameter names identify the shape.
+        bind(parameters, "workflowStates", filter.getWorkflowStates());
+        bind(parameters, "processes", filter.getProcesses());
+        bind(parameters, "taskStatuses", filter.getTaskStatuses());
+        bind(parameters, "excludedTaskStatuses", filter.getExcludedTaskStatuses());
+        bind(parameters, "yjbYpIds", filter.getYjbYpIds());
+        bind(parameters, "createdAfter", filter.getCreatedAfter());
+        bind(parameters, "createdBefore", filter.getCreatedBefore());
+        bind(parameters, "modifiedAfter", filter.getModifiedAfter());
+        bind(parameters, "modifiedBefore", filter.getModifiedBefore());
+
+        List<String> nullFields = checkFields(filter.getNullFields());
+        List<String> notNullFields = checkFields(filter.getNotNullFields());
+
+        String shape = parameters.keySet() + "|" + nullFields + "|" + notNullFields;
+
+        String whereClause = this.shapeCache.computeIfAbsent(shape,
+                        key -> buildWhereClause(parameters.keySet(), nullFields, notNullFields));
+
+        return new CompiledFilter(whereClause, parameters);
+    }
+
+
+    /**
+     * Number of query shapes currently cached.
+     *
+     * @return cached shape count.
+     */
+    int cachedShapes()
+    {
+        return this.shapeCache.size();
+    }
+
+
+    private static void bind(Map<String, Object> parameters, String name, Object value)
+    {
+        // Unset and empty criteria do not restrict the result.
+        if ((value == null) || ((value instanceof Collection) && ((Collection<?>) value).isEmpty()))
+        {
+            return;
+        }
+
+        parameters.put(name, value);
+    }
+
+
+    private static List<String> checkFields(List<String> fields)
+    {
+        if (fields == null)
+        {
+            return Collections.emptyList();
+        }
+
+        for (String field : fields)
+        {
+            if (!NULLABLE_FIELDS.contains(field))
+            {
+                throw new IllegalArgumentException("Unknown workflow field: " + field);
+            }
+        }
+
+        return fields;
+    }
+
+
+    private static String buildWhereClause(Set<String> parameterNames,
+                    List<String> nullFields, List<String> notNullFields)
+    {
+        StringBuilder where = new StringBuilder();
+
+        for (String name : parameterNames)
+        {
+            append(where, predicate(name));
+        }
+
+        for (String field : nullFields)
+        {
+            append(where, "w." + field + " IS NULL");
+        }
+
+        for (String field : notNullFields)
+        {
+            append(where, "w." + field + " IS NOT NULL");
+        }
+
+        return where.toString();
+    }
+
+
+    private static String predicate(String parameterName)
+    {
+        switch (parameterName)
+        {
+            case "workflowStates":
+                return "w.workflowState IN :workflowStates";
+            case "processes":
+                return "w.process IN :processes";
+            case "taskStatuses":
+                return "w.taskStatus IN :taskStatuses";
+            case "excludedTaskStatuses":
+                return "w.taskStatus NOT IN :excludedTaskStatuses";
+            case "yjbYpIds":
+                return "w.yjbYp IN :yjbYpIds";
+            case "createdAfter":
+                return "w.created > :createdAfter";
+            case "createdBefore":
+                return "w.created < :createdBefore";
+            case "modifiedAfter":
+                return "w.modified > :modifiedAfter";
+            case "modifiedBefore":
+                return "w.modified < :modifiedBefore";
+            default:
+                throw new IllegalStateException("No predicate for " + parameterName);
+        }
+    }
+
+
+    private static void append(StringBuilder where, String predicate)
+    {
+        where.append((where.length() == 0) ? " WHERE " : " AND ").append(predicate);
+    }
+
+
+    /**
+     * Compiled WHERE clause and the values to bind to it.
+     */
+    static final class CompiledFilter
+    {
+        private final String              whereClause;
+
+        private final Map<String, Object> parameters;
+
+
+        CompiledFilter(String whereClause, Map<String, Object> parameters)
+        {
+            this.whereClause = whereClause;
+            this.parameters = parameters;
+        }
+
+
+        /**
+         * WHERE clause including the leading ' WHERE ', or empty when the
+         * filter has no criteria.
+         *
+         * @return where clause.
+         */
+        String getWhereClause()
+        {
+            return whereClause;
+        }
+
+
+        /**
+         * The filter predicates prefixed ' AND ', for appending to an
+         * existing WHERE clause, or empty when the filter has no criteria.
+         *
+         * @return and clause.
+         */
+        String getAndClause()
+        {
+            return whereClause.isEmpty() ? "" : " AND " + whereClause.substring(" WHERE ".length());
+        }
+
+
+        Map<String, Object> getParameters()
+        {
+            return parameters;
+        }
+
+
+        /**
+         * Bind the filter values to a query created from the clause.
+         *
+         * @param query - query to bind.
+         * @return the query.
+         */
+        <Q extends Query> Q bind(Q query)
+        {
+            for (Map.Entry<String, Object> parameter : this.parameters.entrySet())
+            {
+                query.setParameter(parameter.getKey(), parameter.getValue());
+            }
+
+            return query;
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.exception.PlacementUnavailableException;
+import com.nps.devassessment.model.PlacementStatus;
+import com.nps.devassessment.model.WorkflowPlacement;
+import com.nps.devassessment.model.placement;
+import com.nps.devassessment.service.PlacementFacade;
+import com.nps.devassessment.service.WorkflowPlacementService;
+import com.nps.devassessment.service.WorkflowRepoService;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowPlacementServiceImpl.java
+ *
+ * Purpose  : Class implementing the retrieval of work flow entity records
+ *            enriched with their placements.
+ *
+ *            The workflows are read by the (yjb_yp_id, created) index on the
+ *            query pool. Their placements are then looked up concurrently,
+ *            with at most placement.enrich.max-fan-out lookups in flight for
+ *            one request: each completed lookup starts the next, so no thread
+ *            waits for a free slot. When placement.enrich.timeout-ms passes
+ *            the result is returned with the lookups still outstanding
+ *            reported as TIMED_OUT, and those lookups are cancelled.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Service
+public class WorkflowPlacementServiceImpl implements WorkflowPlacementService
+{
+    private final WorkflowRepoService workflowRepoService;
+
+    private final PlacementFacade     placementFacade;
+
+    @Value("${placement.enrich.max-fan-out:8}")
+    private int                       maxFanOut;
+
+    @Value("${placement.enrich.timeout-ms:5000}")
+    private long                      timeoutMs;
+
+
+    WorkflowPlacementServiceImpl(WorkflowRepoService workflowRepoService, PlacementFacade placementFacade)
+    {
+        this.workflowRepoService = workflowRepoService;
+        this.placementFacade = placementFacade;
+    }
+
+
+    /**
+     * Method to retrieve the workflows of a young person and enrich them
+     * with their placements by capped concurrent lookups.
+     *
+     */
+    @Override
+    public CompletableFuture<List<WorkflowPlacement>> findWorkflowPlacementsByYjbYp(Long yjbYpId)
+    {
+        return this.workflowRepoService.findWorkflowsByYjbYpAsync(yjbYpId)
+                        .thenCompose(this::enrich);
+    }
+
+
+    private CompletableFuture<List<WorkflowPlacement>> enrich(List<WorkflowEntity> lstWorkflow)
+    {
+        // No workflows - nothing to look up.
+        if (lstWorkflow.isEmpty())
+        {
+            return CompletableFuture.completedFuture(new ArrayList<>());
+        }
+
+        FanOut fanOut = new FanOut(lstWorkflow);
+
+        for (int i = 0; i < Math.min(this.maxFanOut, lstWorkflow.size()); i++)
+        {
+            fanOut.startNext();
+        }
+
+        // At the deadline, report the lookups still outstanding as timed
+        // out, then cancel them.
+        return fanOut.done
+                        .orTimeout(this.timeoutMs, TimeUnit.MILLISECONDS)
+                        .handle((ignored, e) -> {
+
+                            List<WorkflowPlacement> lstResult = fanOut.results();
+
+                            fanOut.cancel();
+
+                            return lstResult;
+                        });
+    }
+
+
+    private static PlacementStatus failureStatus(Throwable e)
+    {
+        Throwable cause = (e instanceof CompletionException) && (e.getCause() != null) ? e.getCause() : e;
+
+        if ((cause instanceof PlacementUnavailableException) && (((PlacementUnavailableException) cause).isTimedOut()))
+        {
+            return PlacementStatus.TIMED_OUT;
+        }
+
+        return PlacementStatus.UNAVAILABLE;
+    }
+
+
+    /**
+     * Placement lookups of one request, at most maxFanOut in flight.
+     */
+    private final class FanOut
+    {
+        private final List<WorkflowEntity>                      lstWorkflow;
+
+        private final AtomicReferenceArray<WorkflowPlacement> results;
+
+        private final AtomicReferenceArray<Future<?>>           lookups;
+
+        private final AtomicInteger                             next      = new AtomicInteger();
+
+        private final AtomicInteger                             completed = new AtomicInteger();
+
+        private final CompletableFuture<Void>                   done      = new CompletableFuture<>();
+
+
+        private FanOut(List<WorkflowEntity> lstWorkflow)
+        {
+            this.lstWorkflow = lstWorkflow;
+            this.results = new AtomicReferenceArray<>(lstWorkflow.size());
+            this.lookups = new AtomicReferenceArray<>(lstWorkflow.size());
+        }
+
+
+        /**
+         * Start the next lookup, if any remain and the request has not
+         * already been answered.
+         */
+        private void startNext()
+        {
+            int index = this.next.getAndIncrement();
+
+            if ((index >= this.lstWorkflow.size()) || (this.done.isDone()))
+            {
+                return;
+            }
+
+            WorkflowEntity workflowEntity = this.lstWorkflow.get(index);
+
+            CompletableFuture<WorkflowPlacement> lookup;
+
+            try
+            {
+                CompletableFuture<placement> found = placementFacade.findPlacement(workflowEntity.getId(),
+                                workflowEntity.getYjbYp());
+
+                this.lookups.set(index, found);
+
+                // Answered while starting - cancel it with the others.
+                if (this.done.isDone())
+                {
+                    found.cancel(true);
+                }
+
+                lookup = found.handle((placement, e) -> {
+
+                    if (e != null)
+                    {
+                        return new WorkflowPlacement(workflowEntity, null, failureStatus(e));
+                    }
+
+                    return new WorkflowPlacement(workflowEntity, placement,
+                                    (placement != null) ? PlacementStatus.FOUND : PlacementStatus.NOT_FOUND);
+                });
+            }
+            catch (RuntimeException e)
+            {
+                lookup = CompletableFuture.completedFuture(
+                                new WorkflowPlacement(workflowEntity, null, failureStatus(e)));
+            }
+
+            lookup.thenAccept(workflowPlacement -> {
+
+                this.results.set(index, workflowPlacement);
+
+                if (this.completed.incrementAndGet() == this.lstWorkflow.size())
+                {
+                    this.done.complete(null);
+                }
+                else
+                {
+                    startNext();
+                }
+            });
+        }
+
+
+        /**
+         * Cancel the lookups still outstanding.
+         */
+        private void cancel()
+        {
+            for (int i = 0; i < this.lstWorkflow.size(); i++)
+            {
+                Future<?> lookup = this.lookups.get(i);
+
+                if ((lookup != null) && (this.results.get(i) == null))
+                {
+                    lookup.cancel(true);
+                }
+            }
+        }
+
+
+        /**
+         * Results in work flow order; outstanding lookups are timed out.
+         */
+        private List<WorkflowPlacement> results()
+        {
+            List<WorkflowPlacement> lstResult = new ArrayList<>(this.lstWorkflow.size());
+
+            for (int i = 0; i < this.lstWorkflow.size(); i++)
+            {
+                WorkflowPlacement workflowPlacement = this.results.get(i);
+
+                lstResult.add((workflowPlacement != null) ? workflowPlacement
+                                : new WorkflowPlacement(this.lstWorkflow.get(i), null, PlacementStatus.TIMED_OUT));
+            }
+
+            return lstResult;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.nps.devassessment.service.impl;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowQueryExecutor.java
+ *
+ * Purpose  : Class to run work flow queries asynchronously on a dedicated,
+ *            bounded thread pool. Each task runs in its own read-only
+ *            transaction, so it holds one pooled connection for the length
+ *            of the query; the pool is therefore sized to the connection
+ *            pool by default. An ad hoc query is run outside a transaction
+ *            and opens its own only once it is admitted (see
+ *            AdHocQueryGuard), so it holds no connection while it waits for
+ *            a slot. Tasks beyond the pool wait in a bounded queue,
+ *            and tasks beyond the queue fail with a
+ *            RejectedExecutionException rather than block the caller.
+ *
+ *            Pool size, active, queued and completed task counts are
+ *            published as 'executor.*' metrics under the name
+ *            'workflowQuery'.
+ *
+ *            The pool is deliberately not exposed as an Executor bean, so it
+ *            does not replace the application task executor used by Spring
+ *            MVC.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+class WorkflowQueryExecutor implements DisposableBean
+{
+    static final String EXECUTOR_NAME = "workflowQuery";
+
+    private final ThreadPoolTaskExecutor executor;
+
+    private final TransactionTemplate    readOnlyTemplate;
+
+
+    WorkflowQueryExecutor(@Value("${workflow.async.pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+                    @Value("${workflow.async.queue-capacity:200}") int queueCapacity,
+                    PlatformTransactionManager transactionManager,
+                    MeterRegistry meterRegistry)
+    {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(poolSize);
+        this.executor.setMaxPoolSize(poolSize);
+        this.executor.setQueueCapacity(queueCapacity);
+        this.executor.setThreadNamePrefix(EXECUTOR_NAME + "-");
+        this.executor.setWaitForTasksToCompleteOnShutdown(true);
+        this.executor.setAwaitTerminationSeconds(30);
+        this.executor.initialize();
+
+        new ExecutorServiceMetrics(this.executor.getThreadPoolExecutor(), EXECUTOR_NAME, Tags.empty())
+                        .bindTo(meterRegistry);
+
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+    }
+
+
+    /**
+     * Run the query on the pool in a read-only transaction.
+     *
+     * @param query - query to run.
+     * @return future completed with the query result, or exceptionally with
+     *         the query failure or a RejectedExecutionException when the pool
+     *         and its queue are full.
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> query)
+    {
+        return supplyUnbound(() -> readOnly(query));
+    }
+
+
+    /**
+     * Run the query on the pool with no transaction - the query opens its
+     * own, with readOnly, when it is ready to hold a connection.
+     *
+     * @param query - query to run.
+     * @return future completed as for supply.
+     */
+    <T> CompletableFuture<T> supplyUnbound(Supplier<T> query)
+    {
+        try
+        {
+            return CompletableFuture.supplyAsync(query, this.executor);
+        }
+        catch (RejectedExecutionException e)
+        {
+            CompletableFuture<T> rejected = new CompletableFuture<>();
+
+            rejected.completeExceptionally(e);
+
+            return rejected;
+        }
+    }
+
+
+    /**
+     * Run the query in a read-only transaction on the calling thread.
+     *
+     * @param query - query to run.
+     * @return query result.
+     */
+    <T> T readOnly(Supplier<T> query)
+    {
+        return this.readOnlyTemplate.execute(status -> query.get());
+    }
+
+
+    @Override
+    public void destroy()
+    {
+        this.executor.shutdown();
+    }
+}
@@ -1,19 +1,56 @@
 package com.nps.devassessment.service.impl;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.EntityType;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.metrics.SlowQueryLog;
+import com.nps.devassessment.model.WorkflowCounts;
+import com.nps.devassessment.model.WorkflowFilter;
+import com.nps.devassessment.model.WorkflowProjection;
+import com.nps.devassessment.model.WorkflowSlice;
+import com.nps.devassessment.model.WorkflowWriteResult;
+import com.nps.devassessment.model.WorkflowWriteStatus;
 import com.nps.devassessment.repo.WorkflowRepo;
 import com.nps.devassessment.service.WorkflowRepoService;
 
@@ -27,6 +64,13 @@ import com.nps.devassessment.service.WorkflowRepoService;
  *            the concrete implementation of the CRUD to retrieve, delete,
  *            update and create work flow entity records.
  *            
+ *            Query methods run in read-only transactions: Hibernate loads
+ *            their records read-only, keeps no snapshot of them for dirty
+ *            checking and does not flush, so the records returned must not
+ *            be modified in the expectation of an update. Full table scans
+ *            read through a stateless session, with no persistence context
+ *            at all.
+ *            
  * Version
  *    1.0   16 Jun 2021 - initial release.
  * 
@@ -36,84 +80,476 @@ import com.nps.devassessment.service.WorkflowRepoService;
 @Service
 public class WorkflowRepoServiceImpl implements WorkflowRepoService
 {
+    /**
+     * Maximum number of ids bound to a single IN query.
+     */
+    private static final int IN_CHUNK_SIZE = 1000;
+    
+    /**
+     * SQL state of a unique or primary key violation.
+     */
+    private static final String DUPLICATE_KEY_STATE = "23505";
+    
     @PersistenceContext()
     private EntityManager em;
     
     private WorkflowRepo workflowRepo;
+    
+    private WorkflowFilterCompiler filterCompiler;
+    
+    private WorkflowEntityCache workflowCache;
+    
+    private WorkflowCounters workflowCounters;
+    
+    private WorkflowQueryExecutor queryExecutor;
+    
+    private SlowQueryLog slowQueryLog;
+    
+    private AdHocQueryCompiler adHocQueryCompiler;
+    
+    private AdHocQueryGuard adHocQueryGuard;
+    
+    private TransactionTemplate transactionTemplate;
+    
+    @Value("${workflow.export.fetch-size:500}")
+    private int exportFetchSize;
+    
+    @Value("${workflow.bulk.delete-batch-size:1000}")
+    private int deleteBatchSize;
 
 
     @Autowired
-    WorkflowRepoServiceImpl(WorkflowRepo workflowRepo)
+    WorkflowRepoServiceImpl(WorkflowRepo workflowRepo,
+                    WorkflowFilterCompiler filterCompiler,
+                    WorkflowEntityCache workflowCache,
+                    WorkflowCounters workflowCounters,
+                    WorkflowQueryExecutor queryExecutor,
+                    SlowQueryLog slowQueryLog,
+                    AdHocQueryCompiler adHocQueryCompiler,
+                    AdHocQueryGuard adHocQueryGuard,
+                    PlatformTransactionManager transactionManager)
     {
         this.workflowRepo = workflowRepo;
+        this.filterCompiler = filterCompiler;
+        this.workflowCache = workflowCache;
+        this.workflowCounters = workflowCounters;
+        this.queryExecutor = queryExecutor;
+        this.slowQueryLog = slowQueryLog;
+        this.adHocQueryCompiler = adHocQueryCompiler;
+        this.adHocQueryGuard = adHocQueryGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
      * Method to perform query on the Workflow Entity based on workflow id.
+     * Reads through the work flow entity cache.
      * 
      */
     @Override
     public WorkflowEntity findWorkflowById(Long id)
     {
-        return this.workflowRepo.findById(id).orElse(null);
+        return this.workflowCache.get(id, 
+                        key -> this.workflowRepo.findById(key).orElse(null));
     }
     
     
     /**
      * Method to perform query on the Workflow Entity. Query consist 
      * of all columns that are required to be retrieved moderated by 
-     * WHERE clause.
+     * WHERE clause. The clause is compiled to a parameterized statement
+     * (see AdHocQueryCompiler); execution times are recorded in the slow
+     * query log, and a WHERE clause query is admitted, timed out and
+     * capped by the ad hoc query guard. The query is admitted before its
+     * read-only transaction, and so its connection, is opened.
      * 
      */
-    @SuppressWarnings("unchecked")
     @Override
     public List<WorkflowEntity> selectWorkflowQuery(String strQuery)
     {
-        List<WorkflowEntity> lstWorkflow = null;
-        
-        // Check if the declension clause is not null and not blank.
-        // Add the WHERE declension clause to the required query.
-        if ((strQuery != null) && (!strQuery.equals("")))
+        return selectWorkflowQuery(this.adHocQueryCompiler.compile(strQuery, false), session -> {});
+    }
+    
+    
+    /**
+     * Run a compiled WHERE clause query, passing the session that runs it
+     * to the running callback first.
+     */
+    @SuppressWarnings("unchecked")
+    private List<WorkflowEntity> selectWorkflowQuery(AdHocQueryCompiler.AdHocQuery adHocQuery, 
+                    Consumer<Session> running)
+    {
+        // Check if there is a declension clause - run the compiled query.
+        if (!adHocQuery.isUnrestricted())
         {
-            lstWorkflow = em.createNamedQuery("Workflow.selectQuery")
-                            .setParameter("strquery", strQuery)
-                            .getResultList();
+            return runAdHocQuery(adHocQuery, running);
         }
+        
         // Otherwise there is no declension clause - there is no WHERE 
         // declension clause to the required query
-        else
+        return this.slowQueryLog.time(adHocQuery.getSql(), adHocQuery.getValues(), 
+                        () -> this.queryExecutor.readOnly(() -> {
+                            
+                            running.accept(em.unwrap(Session.class));
+                            
+                            return em.createNamedQuery("Workflow.findAll")
+                                            .setHint(QueryHints.HINT_READONLY, true)
+                                            .getResultList();
+                        }));
+    }
+    
+    
+    /**
+     * Method to perform the ad hoc query on the query pool. Cancelling the
+     * returned future cancels the statement it is running.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> selectWorkflowQueryAsync(String strQuery)
+    {
+        AtomicReference<Session> runningSession = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        
+        // Check the query before queueing it.
+        AdHocQueryCompiler.AdHocQuery adHocQuery = this.adHocQueryCompiler.compile(strQuery, false);
+        
+        // Admitted outside a transaction - the query opens its own.
+        CompletableFuture<List<WorkflowEntity>> query = this.queryExecutor.supplyUnbound(
+                        () -> selectWorkflowQuery(adHocQuery, session -> {
+                            
+                            runningSession.set(session);
+                            
+                            // Check that the caller has not given up already.
+                            if (cancelled.get())
+                            {
+                                throw new CancellationException();
+                            }
+                        }));
+        
+        query.whenComplete((lstWorkflow, e) -> {
+            
+            if (e instanceof CancellationException)
+            {
+                cancelled.set(true);
+                
+                Session session = runningSession.get();
+                
+                if (session != null)
+                {
+                    try
+                    {
+                        session.cancelQuery();
+                    }
+                    catch (RuntimeException cancelFailure)
+                    {
+                        // The query finished or its session closed meanwhile.
+                    }
+                }
+            }
+        });
+        
+        // Return result
+        return query;
+    }
+    
+    
+    /**
+     * Method to perform query on the Workflow Entity by structured filter.
+     * Values are bound as parameters; the query text depends only on the
+     * criteria present.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowEntity> findWorkflowByFilter(WorkflowFilter filter)
+    {
+        // Compile the filter to its cached query shape and bound values.
+        WorkflowFilterCompiler.CompiledFilter compiled = this.filterCompiler.compile(filter);
+        
+        TypedQuery<WorkflowEntity> query = em.createQuery("SELECT w FROM WorkflowEntity w" 
+                        + compiled.getWhereClause() + " ORDER BY w.id", WorkflowEntity.class);
+        
+        // Return result
+        return compiled.bind(query).getResultList();
+    }
+    
+    
+    /**
+     * Method to read selected columns of the records matching a filter.
+     * The JPQL selects the properties themselves, not the entity, so the
+     * rows are plain values - nothing is managed, snapshotted or cached.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowProjection> findWorkflowFields(WorkflowFilter filter, List<String> fields, String sortBy,
+                    Integer pageNo, Integer pageSize)
+    {
+        // Check that there is something to select.
+        if ((fields == null) || fields.isEmpty())
         {
-            lstWorkflow = em.createNamedQuery("Workflow.findAll")
-                            .getResultList();
+            throw new IllegalArgumentException("No fields selected");
+        }
+        
+        // A field selected twice is selected once, in its first position.
+        List<String> lstField = new ArrayList<>(new LinkedHashSet<>(fields));
+        
+        // Unknown properties are rejected by the metamodel.
+        EntityType<WorkflowEntity> entityType = em.getMetamodel().entity(WorkflowEntity.class);
+        
+        StringBuilder jpql = new StringBuilder("SELECT ");
+        
+        for (int i = 0; i < lstField.size(); i++)
+        {
+            jpql.append((i > 0) ? ", w." : "w.").append(entityType.getAttribute(lstField.get(i)).getName());
+        }
+        
+        String strSortBy = (sortBy != null) ? entityType.getAttribute(sortBy).getName() : "id";
+        
+        // Compile the filter to its cached query shape and bound values.
+        WorkflowFilterCompiler.CompiledFilter compiled = this.filterCompiler.compile(filter);
+        
+        jpql.append(" FROM WorkflowEntity w").append(compiled.getWhereClause())
+                        .append(" ORDER BY w.").append(strSortBy);
+        
+        if (!"id".equals(strSortBy))
+        {
+            jpql.append(", w.id");
+        }
+        
+        Query query = compiled.bind(em.createQuery(jpql.toString()));
+        
+        if (pageSize != null)
+        {
+            query.setFirstResult(((pageNo != null) ? pageNo : 0) * pageSize);
+            query.setMaxResults(pageSize);
+        }
+        
+        List<?> lstRow = query.getResultList();
+        List<WorkflowProjection> lstProjection = new ArrayList<>(lstRow.size());
+        
+        // A single selected property comes back bare, not in an array.
+        for (Object row : lstRow)
+        {
+            lstProjection.add(new WorkflowProjection(lstField, 
+                            (row instanceof Object[]) ? (Object[]) row : new Object[] { row }));
         }
         
         // Return result
-        return lstWorkflow;
+        return lstProjection;
+    }
+    
+    
+    /**
+     * Method to retrieve the version of a work flow record without
+     * loading the record.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Long findWorkflowVersion(Long id)
+    {
+        List<Long> lstVersion = em.createQuery("SELECT w.version FROM WorkflowEntity w WHERE w.id = :id", Long.class)
+                        .setParameter("id", id)
+                        .getResultList();
+        
+        // Return result
+        return lstVersion.isEmpty() ? null : lstVersion.get(0);
+    }
+    
+    
+    /**
+     * Method to retrieve the ids and versions of the work flow records of
+     * a young person by the (yjb_yp_id, created) index, without loading
+     * the records.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, Long> findWorkflowVersionsByYjbYp(Long yjbYpId)
+    {
+        Map<Long, Long> mapVersion = new LinkedHashMap<>();
+        
+        for (Object[] row : em.createQuery("SELECT w.id, w.version FROM WorkflowEntity w WHERE w.yjbYp = :yjbYp"
+                        + " ORDER BY w.created ASC, w.id ASC", Object[].class)
+                        .setParameter("yjbYp", yjbYpId)
+                        .getResultList())
+        {
+            mapVersion.put((Long) row[0], (Long) row[1]);
+        }
+        
+        // Return result
+        return mapVersion;
+    }
+    
+    
+    /**
+     * Method to retrieve the work flow records of a young person by the
+     * (yjb_yp_id, created) index.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowEntity> findWorkflowsByYjbYp(Long yjbYpId)
+    {
+        return this.workflowRepo.findByYjbYpOrderByCreatedAsc(yjbYpId);
+    }
+    
+    
+    /**
+     * Method to retrieve work flow records by the workflow_state index.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowEntity> findWorkflowsByState(String workflowState)
+    {
+        return this.workflowRepo.findByWorkflowState(workflowState);
+    }
+    
+    
+    /**
+     * Method to retrieve work flow records by the (process, task_status)
+     * index.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowEntity> findWorkflowsByProcess(String process, String taskStatus)
+    {
+        // No task status - seek on the leading process column only.
+        if (taskStatus == null)
+        {
+            return this.workflowRepo.findByProcess(process);
+        }
+        
+        return this.workflowRepo.findByProcessAndTaskStatus(process, taskStatus);
+    }
+    
+    
+    /**
+     * Method to retrieve work flow records by the task_status index.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<WorkflowEntity> findWorkflowsByTaskStatus(String taskStatus)
+    {
+        return this.workflowRepo.findByTaskStatus(taskStatus);
+    }
+    
+    
+    /**
+     * Method to run the filter query on the query pool, in its own
+     * read-only transaction.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> findWorkflowByFilterAsync(WorkflowFilter filter)
+    {
+        return this.queryExecutor.supply(() -> findWorkflowByFilter(filter));
+    }
+    
+    
+    /**
+     * Method to run the young person query on the query pool.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> findWorkflowsByYjbYpAsync(Long yjbYpId)
+    {
+        return this.queryExecutor.supply(() -> findWorkflowsByYjbYp(yjbYpId));
+    }
+    
+    
+    /**
+     * Method to run the workflow_state query on the query pool.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> findWorkflowsByStateAsync(String workflowState)
+    {
+        return this.queryExecutor.supply(() -> findWorkflowsByState(workflowState));
+    }
+    
+    
+    /**
+     * Method to run the process query on the query pool.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> findWorkflowsByProcessAsync(String process, String taskStatus)
+    {
+        return this.queryExecutor.supply(() -> findWorkflowsByProcess(process, taskStatus));
+    }
+    
+    
+    /**
+     * Method to run the task_status query on the query pool.
+     * 
+     */
+    @Override
+    public CompletableFuture<List<WorkflowEntity>> findWorkflowsByTaskStatusAsync(String taskStatus)
+    {
+        return this.queryExecutor.supply(() -> findWorkflowsByTaskStatus(taskStatus));
+    }
+    
+    
+    /**
+     * Method to count the work flow records by workflow_state, process and
+     * task_status. Answered from the in-memory counters, which are
+     * reconciled with the table periodically.
+     * 
+     */
+    @Override
+    public WorkflowCounts countWorkflows()
+    {
+        return this.workflowCounters.snapshot();
     }
     
     
     /**
      * Method to perform selective query on the Workflow Entity. Only 
-     * limited by selection of columns that are required.
+     * limited by selection of columns that are required. The statement
+     * is compiled to a parameterized statement (see AdHocQueryCompiler);
+     * execution times are recorded in the slow query log, and the query
+     * is admitted, timed out and capped by the ad hoc query guard, before
+     * its read-only transaction is opened.
      * 
      */
-    @SuppressWarnings("unchecked")
     @Override
     public List<WorkflowEntity> fullWorkflowQuery(String strQuery)
     {
-        List<WorkflowEntity> lstWorkflow = null;
-        
         // Check if the declension clause is not null and not blank.
-        // Add the WHERE declension clause to the required query.
-        if ((strQuery != null) && (!strQuery.equals("")))
+        if ((strQuery == null) || (strQuery.equals("")))
         {
-            lstWorkflow = em.createNamedQuery("Workflow.fullQuery")
-                            .setParameter("strquery", strQuery)
-                            .getResultList();
+            return null;
         }
         
-        // Return result
-        return lstWorkflow;
+        return runAdHocQuery(this.adHocQueryCompiler.compile(strQuery, true), session -> {});
+    }
+    
+    
+    /**
+     * Run a compiled ad hoc query - the statement explained by the guard
+     * is the statement run. The read-only transaction is opened only once
+     * the guard admits the query, so a query waiting for a slot holds no
+     * connection.
+     */
+    @SuppressWarnings("unchecked")
+    private List<WorkflowEntity> runAdHocQuery(AdHocQueryCompiler.AdHocQuery adHocQuery, 
+                    Consumer<Session> running)
+    {
+        return this.slowQueryLog.time(adHocQuery.getSql(), adHocQuery.getValues(), 
+                        () -> this.adHocQueryGuard.admit(adHocQuery, 
+                                        () -> this.queryExecutor.readOnly(() -> {
+                                            
+                                            running.accept(em.unwrap(Session.class));
+                                            
+                                            return this.adHocQueryGuard.checkRows(adHocQuery.bind(this.adHocQueryGuard
+                                                            .limit(em.createNativeQuery(adHocQuery.getSql(), WorkflowEntity.class)))
+                                                            .setHint(QueryHints.HINT_READONLY, true)
+                                                            .getResultList());
+                                        })));
     }
 
     
@@ -122,30 +558,86 @@ public class WorkflowRepoServiceImpl implements WorkflowRepoService
      * 
      */
     @Override
+    @Transactional(readOnly = true)
     public List<WorkflowEntity> findAll()
     {
         // Retrieve all workflow records
         @SuppressWarnings("unchecked")
         List<WorkflowEntity> lstWorkflow = em.createNamedQuery("Workflow.findAll")
+                            .setHint(QueryHints.HINT_READONLY, true)
                             .getResultList();
         
         // Return result
         return lstWorkflow;
     }
+    
+    
+    /**
+     * Method to stream all work flow records. Rows are read through a
+     * forward only JDBC cursor with a set fetch size by a stateless
+     * session, which keeps no persistence context, snapshots or second
+     * level cache entries, so memory use stays constant whatever the size
+     * of the table.
+     * 
+     */
+    @Override
+    public long streamAll(Consumer<WorkflowEntity> consumer)
+    {
+        StatelessSession session = em.getEntityManagerFactory().unwrap(SessionFactory.class).openStatelessSession();
+        
+        long count = 0;
+        
+        try
+        {
+            Transaction transaction = session.beginTransaction();
+            
+            ScrollableResults results = session
+                            .createQuery("SELECT w FROM WorkflowEntity w ORDER BY w.id", WorkflowEntity.class)
+                            .setFetchSize(this.exportFetchSize)
+                            .setReadOnly(true)
+                            .scroll(ScrollMode.FORWARD_ONLY);
+            
+            try
+            {
+                // Hand each record to the consumer as it arrives.
+                while (results.next())
+                {
+                    consumer.accept((WorkflowEntity) results.get(0));
+                    
+                    count++;
+                }
+            }
+            finally
+            {
+                results.close();
+                
+                // Nothing to commit.
+                transaction.rollback();
+            }
+        }
+        finally
+        {
+            session.close();
+        }
+        
+        // Return number of records streamed
+        return count;
+    }
 
 
     /**
      * Method to retrieve all work flow entity records and paginate.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<WorkflowEntity> findAll(Integer pageNo,
                     Integer pageSize, String sortBy)
     {
         // Set paging of workflow records.
         Pageable paging = PageRequest.of(pageNo, pageSize, Sort.by(sortBy));
 
-        // Set work flow entity record page
-        Page<WorkflowEntity> pagedResult = this.workflowRepo.findAll(paging);
+        // Set work flow entity record page - a slice avoids the COUNT query.
+        Slice<WorkflowEntity> pagedResult = this.workflowRepo.findAllBy(paging);
 
         // If the returned page result has records to display, return record page.
         if (pagedResult.hasContent())
@@ -159,41 +651,188 @@ public class WorkflowRepoServiceImpl implements WorkflowRepoService
         }
     }
     
+    
+    /**
+     * Method to retrieve a slice of work flow entity records by keyset
+     * paging. The query seeks on (sortBy, id) past the last record of the
+     * previous slice, so the cost of a slice does not grow with its depth.
+     * 
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public WorkflowSlice findAllAfter(String after, Integer limit, String sortBy)
+    {
+        // Check the slice size is usable.
+        if ((limit == null) || (limit < 1))
+        {
+            throw new IllegalArgumentException("Limit must be at least 1");
+        }
+
+        // Resolve the sort column type - unknown columns are rejected by the metamodel.
+        Class<?> sortType = em.getMetamodel().entity(WorkflowEntity.class)
+                        .getAttribute(sortBy).getJavaType();
+        
+        boolean bSortById = "id".equals(sortBy);
+        
+        WorkflowCursor cursor = (after != null) 
+                        ? WorkflowCursor.decode(after, sortBy, sortType) : null;
+        
+        StringBuilder jpql = new StringBuilder("SELECT w FROM WorkflowEntity w");
+        
+        // Seek past the last record of the previous slice. Null sort values
+        // are ordered first, so a null cursor value continues through the
+        // remaining nulls before moving on to the non null values.
+        if (cursor != null)
+        {
+            if (bSortById)
+            {
+                jpql.append(" WHERE w.id > :lastId");
+            }
+            else if (cursor.getLastValue() == null)
+            {
+                jpql.append(" WHERE (w.").append(sortBy).append(" IS NULL AND w.id > :lastId)")
+                    .append(" OR w.").append(sortBy).append(" IS NOT NULL");
+            }
+            else
+            {
+                jpql.append(" WHERE w.").append(sortBy).append(" > :lastValue")
+                    .append(" OR (w.").append(sortBy).append(" = :lastValue AND w.id > :lastId)");
+            }
+        }
+        
+        // Order by the sort column with id as the tie breaker.
+        if (bSortById)
+        {
+            jpql.append(" ORDER BY w.id ASC");
+        }
+        else
+        {
+            jpql.append(" ORDER BY w.").append(sortBy).append(" ASC NULLS FIRST, w.id ASC");
+        }
+        
+        TypedQuery<WorkflowEntity> query = em.createQuery(jpql.toString(), WorkflowEntity.class)
+                        .setMaxResults(limit);
+        
+        if (cursor != null)
+        {
+            query.setParameter("lastId", cursor.getLastId());
+            
+            if ((!bSortById) && (cursor.getLastValue() != null))
+            {
+                query.setParameter("lastValue", cursor.getLastValue());
+            }
+        }
+        
+        List<WorkflowEntity> lstWorkflow = query.getResultList();
+        
+        // A full slice may have further records - issue the cursor of its last record.
+        String nextCursor = null;
+        
+        if (lstWorkflow.size() == limit)
+        {
+            WorkflowEntity last = lstWorkflow.get(lstWorkflow.size() - 1);
+            
+            Object lastValue = bSortById ? last.getId() 
+                            : new BeanWrapperImpl(last).getPropertyValue(sortBy);
+            
+            nextCursor = new WorkflowCursor(sortBy, last.getId(), lastValue).encode();
+        }
+        
+        // Return result
+        return new WorkflowSlice(lstWorkflow, nextCursor);
+    }
+    
     /**
-     * Method to create the work flow entity record.
+     * Method to create the work flow entity record. The record is inserted
+     * by a single conditional INSERT; the affected row count reports
+     * whether a record with the same id already existed.
      */
     @Override
     public WorkflowEntity createWorkflow(WorkflowEntity workflowEntity)
     {
-        // Check that the workflow entity exists - not null.
-        if (workflowEntity != null)
+        // Check that the workflow entity exists - not null - and has an id.
+        if ((workflowEntity != null) && (workflowEntity.getId() != null))
         {
-            // Check if the record does not exist - create/save the record.
-            if (!this.workflowRepo.existsById(workflowEntity.getWorkflowId()))
-            { 
-                return this.workflowRepo.save(workflowEntity);
+            try
+            {
+                // Insert the record if the id does not exist.
+                if (this.workflowRepo.insertIfAbsent(workflowEntity) == 1)
+                { 
+                    // A new record starts at the column default version.
+                    workflowEntity.setVersion(0L);
+                    
+                    this.workflowCache.written(workflowEntity);
+                    this.workflowCounters.created(workflowEntity);
+                    
+                    return workflowEntity;
+                }
+            }
+            catch (DataIntegrityViolationException e)
+            {
+                // Only a concurrent writer inserting the same id first is
+                // a failed create - any other violation is the caller's.
+                if (!isDuplicateKey(e))
+                {
+                    throw e;
+                }
             }
         }
         
         // Create new record criteria fails - return null;
         return null;
     } 
+    
+    
+    /**
+     * Whether the violation is of the primary key rather than, say, a
+     * NOT NULL column.
+     */
+    private static boolean isDuplicateKey(DataIntegrityViolationException e)
+    {
+        if (e instanceof DuplicateKeyException)
+        {
+            return true;
+        }
+        
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause())
+        {
+            if (cause instanceof SQLException)
+            {
+                return DUPLICATE_KEY_STATE.equals(((SQLException) cause).getSQLState());
+            }
+        }
+        
+        return false;
+    }
  
     
     /**
-     * Method to update the work flow entity record by id.
+     * Method to update the work flow entity record by id. The record is
+     * updated by a single UPDATE ... WHERE id = ?; the affected row count
+     * reports whether the record existed. The version the update wrote is
+     * read back in the same transaction.
      * 
      */
     @Override
+    @Transactional
     public WorkflowEntity updateWorkflow(WorkflowEntity workflowEntity)
     {
-        // Check that the workflow entity exists - not null.
-        if (workflowEntity != null)
+        // Check that the workflow entity exists - not null - and has an id.
+        if ((workflowEntity != null) && (workflowEntity.getId() != null))
         {
-            // Check if the record does exist - update the record.
-            if (this.workflowRepo.existsById(workflowEntity.getWorkflowId()))
+            // Previous values, if cached, for the counters.
+            WorkflowEntity previousEntity = this.workflowCache.peek(workflowEntity.getId());
+            
+            // Update the record if the id exists.
+            if (this.workflowRepo.updateById(workflowEntity) == 1)
             { 
-                return this.workflowRepo.save(workflowEntity);
+                // The version is moved on in the database - reload on next read.
+                workflowEntity.setVersion(findWorkflowVersion(workflowEntity.getId()));
+                
+                this.workflowCache.evict(workflowEntity.getId());
+                this.workflowCounters.updated(previousEntity, workflowEntity);
+                
+                return workflowEntity;
             }
         }
         
@@ -203,41 +842,198 @@ public class WorkflowRepoServiceImpl implements WorkflowRepoService
     
     
     /**
-     * Method to delete the work flow entity record by id
+     * Method to create or replace the work flow entity record by id in a
+     * single MERGE statement. The version the MERGE wrote is read back in
+     * the same transaction.
      * 
-     * @param workflowEntity - work flow entity to be deleted with id.
+     */
+    @Override
+    @Transactional
+    public WorkflowEntity upsertWorkflow(WorkflowEntity workflowEntity)
+    {
+        // Check that the workflow entity exists - not null - and has an id.
+        if ((workflowEntity != null) && (workflowEntity.getId() != null))
+        {
+            // Whether the MERGE inserts or updates is not known - reconcile the counters.
+            this.workflowRepo.upsert(workflowEntity);
+            
+            // The version is moved on in the database - reload on next read.
+            workflowEntity.setVersion(findWorkflowVersion(workflowEntity.getId()));
+            
+            this.workflowCache.evict(workflowEntity.getId());
+            this.workflowCounters.markStale();
+            
+            return workflowEntity;
+        }
+        
+        // Upsert record criteria fails - return null;
+        return null;
+    }
+    
+    
+    /**
+     * Method to update a collection of work flow entity records in one
+     * transaction. Each chunk of ids is loaded with a single IN query, the
+     * submitted state is copied onto the loaded entities and the resulting
+     * UPDATE statements are flushed as JDBC batches (see
+     * hibernate.jdbc.batch_size). Records that are unchanged are not
+     * written.
      * 
      */
     @Override
-    public void deleteWorkflowById(Long workflowEntityId)
+    @Transactional
+    public List<WorkflowWriteResult> updateWorkflows(
+                    Iterable<? extends WorkflowEntity> workflowEntities)
     {
-        // Check if the record does exist - update the record.
-        if (this.workflowRepo.existsById(workflowEntityId))
-        { 
-            this.workflowRepo.deleteById(workflowEntityId);
+        List<WorkflowWriteResult> lstResult = new ArrayList<>();
+        
+        // Nothing submitted - nothing to update.
+        if (workflowEntities == null)
+        {
+            return lstResult;
         }
-
+        
+        List<WorkflowEntity> lstChunk = new ArrayList<>();
+        List<Integer> lstChunkIndex = new ArrayList<>();
+        
+        for (WorkflowEntity workflowEntity : workflowEntities)
+        {
+            int index = lstResult.size();
+            
+            // Records without an id cannot be updated.
+            if ((workflowEntity == null) || (workflowEntity.getId() == null))
+            {
+                lstResult.add(new WorkflowWriteResult(index, null, WorkflowWriteStatus.INVALID));
+                continue;
+            }
+            
+            // Outcome recorded at its index when the chunk is applied.
+            lstResult.add(null);
+            
+            lstChunk.add(workflowEntity);
+            lstChunkIndex.add(index);
+            
+            if (lstChunk.size() == IN_CHUNK_SIZE)
+            {
+                updateChunk(lstChunk, lstChunkIndex, lstResult);
+                lstChunk.clear();
+                lstChunkIndex.clear();
+            }
+        }
+        
+        updateChunk(lstChunk, lstChunkIndex, lstResult);
+        
+        // Return outcomes
+        return lstResult;
     }
     
+    
     /**
-     * Method to delete the work flow entity record by work flow entity
+     * Apply one chunk of a bulk update and flush it, recording the outcome
+     * of each record at its submission index.
+     */
+    private void updateChunk(List<WorkflowEntity> lstChunk, List<Integer> lstChunkIndex,
+                    List<WorkflowWriteResult> lstResult)
+    {
+        if (lstChunk.isEmpty())
+        {
+            return;
+        }
+        
+        List<Long> lstId = new ArrayList<>(lstChunk.size());
+        
+        for (WorkflowEntity workflowEntity : lstChunk)
+        {
+            lstId.add(workflowEntity.getId());
+        }
+        
+        // Load the existing records of the chunk with one query.
+        Map<Long, WorkflowEntity> mapExisting = new HashMap<>();
+        
+        for (WorkflowEntity existingEntity : em.createQuery("SELECT w FROM WorkflowEntity w WHERE w.id IN :ids", WorkflowEntity.class)
+                        .setParameter("ids", lstId)
+                        .getResultList())
+        {
+            mapExisting.put(existingEntity.getId(), existingEntity);
+        }
+        
+        // Copy the submitted state onto the managed records.
+        for (int i = 0; i < lstChunk.size(); i++)
+        {
+            WorkflowEntity workflowEntity = lstChunk.get(i);
+            int index = lstChunkIndex.get(i);
+            
+            WorkflowEntity existingEntity = mapExisting.get(workflowEntity.getId());
+            
+            if (existingEntity == null)
+            {
+                lstResult.set(index, new WorkflowWriteResult(index, workflowEntity.getId(), WorkflowWriteStatus.NOT_FOUND));
+                continue;
+            }
+            
+            WorkflowEntity previousEntity = new WorkflowEntity(existingEntity);
+            
+            BeanUtils.copyProperties(workflowEntity, existingEntity, "id", "version");
+            
+            this.workflowCounters.updated(previousEntity, existingEntity);
+            
+            lstResult.set(index, new WorkflowWriteResult(index, workflowEntity.getId(), WorkflowWriteStatus.UPDATED));
+        }
+        
+        // Send the batched updates and release the chunk from the persistence context.
+        em.flush();
+        em.clear();
+        
+        for (WorkflowEntity existingEntity : mapExisting.values())
+        {
+            this.workflowCache.written(existingEntity);
+        }
+    }
+    
+    
+    /**
+     * Method to delete the work flow entity record by id in a single
+     * DELETE ... WHERE id = ?.
      * 
-     * @param workflowEntity - work flow entity to be deleted by work flow entity.
+     * @param workflowEntityId - id of the work flow entity to be deleted.
      * 
      */
     @Override
-    public void deleteWorkflowByWorkFlow(WorkflowEntity workflowEntity)
+    public boolean deleteWorkflowById(Long workflowEntityId)
     {
-        // Check that the workflow entity exists - not null.
-        if (workflowEntity != null)
+        // Check that the id exists - not null.
+        if (workflowEntityId == null)
         {
-            // Check if the record does exist - update the record.
-            if (this.workflowRepo.existsById(workflowEntity.getWorkflowId()))
-            { 
-                this.workflowRepo.deleteById(workflowEntity.getWorkflowId());
-            }
+            return false;
+        }
+        
+        // Previous values, if cached, for the counters.
+        WorkflowEntity previousEntity = this.workflowCache.peek(workflowEntityId);
+        
+        // Delete the record - the row count reports whether it existed.
+        boolean bDeleted = (this.workflowRepo.deleteRowById(workflowEntityId) == 1);
+        
+        this.workflowCache.evict(workflowEntityId);
+        
+        if (bDeleted)
+        {
+            this.workflowCounters.deleted(previousEntity);
         }
 
+        return bDeleted;
+    }
+    
+    /**
+     * Method to delete the work flow entity record by work flow entity,
+     * keyed by its primary key as deleteWorkflow is.
+     * 
+     * @param workflowEntity - work flow entity to be deleted by work flow entity.
+     * 
+     */
+    @Override
+    public boolean deleteWorkflowByWorkFlow(WorkflowEntity workflowEntity)
+    {
+        return deleteWorkflow(workflowEntity);
     }
     
     
@@ -248,45 +1044,184 @@ public class WorkflowRepoServiceImpl implements WorkflowRepoService
      * 
      */
     @Override
-    public void deleteWorkflow(WorkflowEntity workflowEntity)
+    public boolean deleteWorkflow(WorkflowEntity workflowEntity)
     {
         // Check that the workflow entity exists - not null.
         if (workflowEntity != null)
         {
-            // Check if the record does exist - update the record.
-            if (this.workflowRepo.existsById(workflowEntity.getWorkflowId()))
-            { 
-                this.workflowRepo.delete(workflowEntity);
-            }
+            return deleteWorkflowById(workflowEntity.getId());
         }
         
+        return false;
     }
     
     
     /**
-     * Method to delete collection of work flow entity records.
+     * Method to delete collection of work flow entity records by their
+     * ids, with set based DELETE statements.
      * 
      * @param workflowEntity - collection of work flow entity to be deleted
      * 
      */
-    public void deleteWorkflowIterable(Iterable<? extends WorkflowEntity> workflowEntity)
+    @Override
+    public int deleteWorkflowIterable(Iterable<? extends WorkflowEntity> workflowEntity)
     {
+        List<Long> lstId = new ArrayList<>();
+        
         // Check that the workflow entity exists - not null.
         if (workflowEntity != null)
         {
-            this.workflowRepo.deleteAll((Iterable<? extends WorkflowEntity>) workflowEntity);
+            for (WorkflowEntity deletedEntity : workflowEntity)
+            {
+                if ((deletedEntity != null) && (deletedEntity.getId() != null))
+                {
+                    lstId.add(deletedEntity.getId());
+                }
+            }
         }
         
+        return deleteWorkflowsById(lstId);
     }
     
+    
     /**
-     * Method to delete all of the work flow entity records.
+     * Method to delete work flow entity records by id. Each chunk of ids
+     * is removed by one DELETE ... WHERE id IN (...) in its own
+     * transaction; no entity is loaded.
      * 
      */
     @Override
-    public void deleteWorkflowAll()
+    public int deleteWorkflowsById(Collection<Long> workflowEntityIds)
+    {
+        // Nothing submitted - nothing to delete.
+        if ((workflowEntityIds == null) || (workflowEntityIds.isEmpty()))
+        {
+            return 0;
+        }
+        
+        List<Long> lstId = new ArrayList<>(workflowEntityIds);
+        
+        int deleted = 0;
+        
+        for (int from = 0; from < lstId.size(); from += IN_CHUNK_SIZE)
+        {
+            List<Long> lstChunk = lstId.subList(from, Math.min(from + IN_CHUNK_SIZE, lstId.size()));
+            
+            deleted += this.transactionTemplate.execute(status -> em
+                            .createQuery("DELETE FROM WorkflowEntity w WHERE w.id IN :ids")
+                            .setParameter("ids", lstChunk)
+                            .executeUpdate());
+            
+            for (Long id : lstChunk)
+            {
+                this.workflowCache.evict(id);
+            }
+        }
+        
+        // Deleted values are not loaded - reconcile the counters.
+        if (deleted > 0)
+        {
+            this.workflowCounters.markStale();
+        }
+        
+        // Return number of records deleted
+        return deleted;
+    }
+    
+    
+    /**
+     * Method to delete the work flow entity records matching the filter.
+     * The filter is pushed down into the statements that select each batch
+     * of matching ids and delete them, in its own transaction, so a large
+     * purge never holds one long transaction.
+     * 
+     */
+    @Override
+    public int deleteWorkflowsByFilter(WorkflowFilter filter)
+    {
+        WorkflowFilterCompiler.CompiledFilter compiled = this.filterCompiler.compile(filter);
+        
+        // An empty filter would delete every record - require deleteWorkflowAll.
+        if (compiled.getWhereClause().isEmpty())
+        {
+            throw new IllegalArgumentException("Delete filter must have at least one criterion");
+        }
+        
+        return deleteInBatches(compiled);
+    }
+    
+    
+    /**
+     * Method to delete all of the work flow entity records, one batch of
+     * ids per DELETE statement.
+     * 
+     */
+    @Override
+    public int deleteWorkflowAll()
     {           
-        this.workflowRepo.deleteAll();   
+        return deleteInBatches(this.filterCompiler.compile(null));
+    }
+    
+    
+    /**
+     * Delete the records matching the compiled filter, one batch of ids
+     * at a time. Each batch seeks the next matching ids after the last one
+     * deleted, so gaps in the ids cost nothing.
+     */
+    private int deleteInBatches(WorkflowFilterCompiler.CompiledFilter compiled)
+    {
+        String strIdQuery = "SELECT w.id FROM WorkflowEntity w WHERE w.id > :afterId" 
+                        + compiled.getAndClause() + " ORDER BY w.id";
+        String strDelete = "DELETE FROM WorkflowEntity w WHERE w.id IN :ids" + compiled.getAndClause();
+        
+        long afterId = Long.MIN_VALUE;
+        
+        AtomicInteger deleted = new AtomicInteger();
+        
+        while (true)
+        {
+            long fromId = afterId;
+            
+            List<Long> lstId = this.transactionTemplate.execute(status -> {
+                
+                List<Long> lstBatch = compiled.bind(em.createQuery(strIdQuery, Long.class))
+                                .setParameter("afterId", fromId)
+                                .setMaxResults(this.deleteBatchSize)
+                                .getResultList();
+                
+                // Still matching - a record changed since it was read is kept.
+                if (!lstBatch.isEmpty())
+                {
+                    deleted.addAndGet(compiled.bind(em.createQuery(strDelete))
+                                    .setParameter("ids", lstBatch)
+                                    .executeUpdate());
+                }
+                
+                return lstBatch;
+            });
+            
+            // No more matching records.
+            if (lstId.isEmpty())
+            {
+                break;
+            }
+            
+            for (Long id : lstId)
+            {
+                this.workflowCache.evict(id);
+            }
+            
+            afterId = lstId.get(lstId.size() - 1);
+        }
+        
+        // Deleted values are not loaded - reconcile the counters.
+        if (deleted.get() > 0)
+        {
+            this.workflowCounters.markStale();
+        }
+        
+        // Return number of records deleted
+        return deleted.get();
     }
     
 }
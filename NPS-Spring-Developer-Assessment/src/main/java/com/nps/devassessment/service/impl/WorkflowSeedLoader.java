@@ -0,0 +1,327 @@
+package com.nps.devassessment.service.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowSeedLoader.java
+ *
+ * Purpose  : Class to bootstrap the workflow table from a compact CSV
+ *            snapshot instead of the row by row INSERT statements of
+ *            data.sql. Enabled with workflow.seed.mode=bulk (see the
+ *            'bulkseed' profile), which also turns off the standard
+ *            schema.sql / data.sql initialization.
+ *
+ *            The table is created from schema.sql without its secondary
+ *            indexes, the snapshot is parsed in parallel and inserted as
+ *            multi-row JDBC batches over several pooled connections, and
+ *            the indexes are then built once over the loaded rows. The
+ *            snapshot may be gzip compressed (.gz). The load time is
+ *            written to the log at startup.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@Component
+@ConditionalOnProperty(name = "workflow.seed.mode", havingValue = "bulk")
+class WorkflowSeedLoader implements InitializingBean
+{
+    private static final Logger log = LoggerFactory.getLogger(WorkflowSeedLoader.class);
+
+    /**
+     * Snapshot columns, in file order.
+     */
+    static final String COLUMNS = "id,yjb_yp_id,workflow_id,kpf_confirmed,workflow_state,created,modified,"
+                    + "created_by,modified_by,metadata,process,task_id,previous_state,task_status,task_metadata";
+
+    private static final String INSERT_SQL = "INSERT INTO workflow (" + COLUMNS
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int COLUMN_COUNT = 15;
+
+    private final DataSource     dataSource;
+
+    private final ResourceLoader resourceLoader;
+
+    @Value("${workflow.seed.schema:classpath:schema.sql}")
+    private String               schemaLocation;
+
+    @Value("${workflow.seed.location:classpath:seed/workflow.csv}")
+    private String               seedLocation;
+
+    @Value("${workflow.seed.batch-size:1000}")
+    private int                  batchSize;
+
+    @Value("${workflow.seed.parallelism:4}")
+    private int                  parallelism;
+
+
+    WorkflowSeedLoader(DataSource dataSource, ResourceLoader resourceLoader)
+    {
+        this.dataSource = dataSource;
+        this.resourceLoader = resourceLoader;
+    }
+
+
+    @Override
+    public void afterPropertiesSet() throws Exception
+    {
+        long start = System.nanoTime();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+
+        List<String> lstTableStatement = new ArrayList<>();
+        List<String> lstIndexStatement = new ArrayList<>();
+
+        splitSchema(lstTableStatement, lstIndexStatement);
+
+        // Create the table - indexes are built after the load.
+        lstTableStatement.forEach(jdbcTemplate::execute);
+
+        List<List<String>> lstChunk = readChunks();
+
+        // Parse and insert the chunks in parallel, one pooled connection per worker.
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, this.parallelism));
+
+        int rows;
+
+        try
+        {
+            rows = pool.submit(() -> lstChunk.parallelStream()
+                            .mapToInt(chunk -> insert(jdbcTemplate, chunk))
+                            .sum()).get();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        long loaded = System.nanoTime();
+
+        lstIndexStatement.forEach(jdbcTemplate::execute);
+
+        long indexed = System.nanoTime();
+
+        log.info("Seeded {} workflow rows from {} in {} ms (load {} ms, index {} ms)", rows, this.seedLocation,
+                        (indexed - start) / 1_000_000, (loaded - start) / 1_000_000, (indexed - loaded) / 1_000_000);
+    }
+
+
+    /**
+     * Split schema.sql into the table statements and the index statements.
+     */
+    private void splitSchema(List<String> lstTableStatement, List<String> lstIndexStatement) throws IOException
+    {
+        Resource schema = this.resourceLoader.getResource(this.schemaLocation);
+
+        String script;
+
+        try (InputStream in = schema.getInputStream())
+        {
+            script = StreamUtils.copyToString(in, StandardCharsets.UTF_8);
+        }
+
+        List<String> lstStatement = new ArrayList<>();
+
+        ScriptUtils.splitSqlScript(script, ';', lstStatement);
+
+        for (String statement : lstStatement)
+        {
+            if (statement.trim().toUpperCase().startsWith("CREATE INDEX"))
+            {
+                lstIndexStatement.add(statement);
+            }
+            else
+            {
+                lstTableStatement.add(statement);
+            }
+        }
+    }
+
+
+    /**
+     * Read the snapshot, without its header, as chunks of one batch each.
+     */
+    private List<List<String>> readChunks() throws IOException
+    {
+        Resource seed = this.resourceLoader.getResource(this.seedLocation);
+
+        List<List<String>> lstChunk = new ArrayList<>();
+
+        try (InputStream in = seed.getInputStream();
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                             this.seedLocation.endsWith(".gz") ? new GZIPInputStream(in) : in,
+                             StandardCharsets.UTF_8)))
+        {
+            String header = reader.readLine();
+
+            // Check the snapshot columns match the table.
+            if ((header == null) || (!COLUMNS.equals(header.trim())))
+            {
+                throw new IllegalStateException("Unexpected seed header in " + this.seedLocation + ": " + header);
+            }
+
+            List<String> lstLine = new ArrayList<>(this.batchSize);
+
+            for (String line = reader.readLine(); line != null; line = reader.readLine())
+            {
+                if (line.isEmpty())
+                {
+                    continue;
+                }
+
+                lstLine.add(line);
+
+                if (lstLine.size() == this.batchSize)
+                {
+                    lstChunk.add(lstLine);
+                    lstLine = new ArrayList<>(this.batchSize);
+                }
+            }
+
+            if (!lstLine.isEmpty())
+            {
+                lstChunk.add(lstLine);
+            }
+        }
+
+        return lstChunk;
+    }
+
+
+    /**
+     * Parse one chunk and insert it as a single JDBC batch.
+     */
+    private static int insert(JdbcTemplate jdbcTemplate, List<String> chunk)
+    {
+        List<Object[]> lstRow = chunk.stream()
+                        .map(WorkflowSeedLoader::parseRow)
+                        .collect(Collectors.toList());
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, lstRow);
+
+        return lstRow.size();
+    }
+
+
+    /**
+     * Convert one CSV line to the column values. An empty unquoted field
+     * is NULL; a quoted field may contain commas and doubled quotes.
+     */
+    static Object[] parseRow(String line)
+    {
+        String[] fields = splitLine(line);
+
+        Object[] row = new Object[COLUMN_COUNT];
+
+        row[0] = toLong(fields[0]);
+        row[1] = toLong(fields[1]);
+        row[2] = toLong(fields[2]);
+        row[3] = (fields[3] != null) ? Boolean.valueOf(fields[3]) : null;
+        row[4] = fields[4];
+        row[5] = (fields[5] != null) ? Timestamp.valueOf(fields[5]) : null;
+        row[6] = (fields[6] != null) ? Timestamp.valueOf(fields[6]) : null;
+
+        System.arraycopy(fields, 7, row, 7, COLUMN_COUNT - 7);
+
+        return row;
+    }
+
+
+    private static Long toLong(String field)
+    {
+        return (field != null) ? Long.valueOf(field) : null;
+    }
+
+
+    private static String[] splitLine(String line)
+    {
+        String[] fields = new String[COLUMN_COUNT];
+
+        int column = 0;
+        int pos = 0;
+
+        while (column < COLUMN_COUNT)
+        {
+            if ((pos < line.length()) && (line.charAt(pos) == '"'))
+            {
+                // Quoted field - doubled quotes are literal quotes.
+                StringBuilder value = new StringBuilder();
+
+                pos++;
+
+                while (true)
+                {
+                    char c = line.charAt(pos++);
+
+                    if (c == '"')
+                    {
+                        if ((pos < line.length()) && (line.charAt(pos) == '"'))
+                        {
+                            value.append('"');
+                            pos++;
+                        }
+                        else
+                        {
+                            break;
+                        }
+                    }
+                    else
+                    {
+                        value.append(c);
+                    }
+                }
+
+                fields[column] = value.toString();
+            }
+            else
+            {
+                int end = line.indexOf(',', pos);
+
+                if (end < 0)
+                {
+                    end = line.length();
+                }
+
+                fields[column] = (end > pos) ? line.substring(pos, end) : null;
+
+                pos = end;
+            }
+
+            column++;
+
+            // Skip the separator.
+            pos++;
+        }
+
+        return fields;
+    }
+}
@@ -16,6 +16,12 @@ CREATE TABLE workflow
     task_id VARCHAR(250),
     previous_state VARCHAR(250),
     task_status VARCHAR(250),
-    task_metadata VARCHAR(250)    
-)
+    task_metadata VARCHAR(250),
+    version BIGINT DEFAULT 0 NOT NULL
+);
+
+CREATE INDEX idx_workflow_state ON workflow (workflow_state);
+CREATE INDEX idx_workflow_yp_created ON workflow (yjb_yp_id, created);
+CREATE INDEX idx_workflow_process_task_status ON workflow (process, task_status);
+CREATE INDEX idx_workflow_task_status ON workflow (task_status);
 
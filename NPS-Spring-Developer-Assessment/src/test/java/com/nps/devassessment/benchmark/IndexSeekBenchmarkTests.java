@@ -0,0 +1,256 @@
+package com.nps.devassessment.benchmark;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   IndexSeekBenchmarkTests.java
+ *
+ * Purpose  : Benchmark of the workflow lookups served by the secondary
+ *            indexes in schema.sql. A stand-alone H2 database is filled
+ *            with synthetic rows (1,000,000 by default) and each lookup is
+ *            timed as a full table scan, then again after the schema
+ *            indexes are created.
+ *
+ *            The benchmark is skipped unless run with -Dworkflow.benchmark=true;
+ *            the row count is set with -Dworkflow.benchmark.rows.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public class IndexSeekBenchmarkTests
+{
+    private static final Logger log = LoggerFactory.getLogger(IndexSeekBenchmarkTests.class);
+
+    private static final int ITERATIONS = 20;
+
+    private static final String[][] LOOKUPS = {
+        { "byYp", "SELECT * FROM workflow WHERE yjb_yp_id = ? ORDER BY created", "20017" },
+        { "byState", "SELECT * FROM workflow WHERE workflow_state = ?", "CANCELLED" },
+        { "byProcessAndTaskStatus", "SELECT * FROM workflow WHERE process = ? AND task_status = ?", "transferPlanned", "REJECTED" },
+        { "byTaskStatus", "SELECT * FROM workflow WHERE task_status = ?", "REJECTED" }
+    };
+
+    private Connection connection;
+
+
+    @Before
+    public void setUp() throws Exception
+    {
+        Assume.assumeTrue("Benchmark disabled - run with -Dworkflow.benchmark=true",
+                        Boolean.getBoolean("workflow.benchmark"));
+
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:index_benchmark", "sa", "");
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        if (this.connection != null)
+        {
+            this.connection.close();
+        }
+    }
+
+
+    @Test
+    public void shouldShowIndexSeekOutperformsTableScan() throws Exception
+    {
+        int rows = Integer.getInteger("workflow.benchmark.rows", 1_000_000);
+
+        List<String> tableStatements = new ArrayList<>();
+        List<String> indexStatements = new ArrayList<>();
+
+        // Split the schema into the table and its secondary indexes.
+        for (String statement : readSchema())
+        {
+            if (statement.toUpperCase().startsWith("CREATE INDEX"))
+            {
+                indexStatements.add(statement);
+            }
+            else
+            {
+                tableStatements.add(statement);
+            }
+        }
+
+        execute(tableStatements);
+
+        long start = System.nanoTime();
+
+        populate(rows);
+
+        log.info("Loaded {} rows in {} ms", rows, (System.nanoTime() - start) / 1_000_000);
+
+        double[] scanMillis = new double[LOOKUPS.length];
+
+        for (int i = 0; i < LOOKUPS.length; i++)
+        {
+            scanMillis[i] = time(LOOKUPS[i]);
+        }
+
+        start = System.nanoTime();
+
+        execute(indexStatements);
+
+        log.info("Created {} indexes in {} ms", indexStatements.size(), (System.nanoTime() - start) / 1_000_000);
+
+        for (int i = 0; i < LOOKUPS.length; i++)
+        {
+            double seekMillis = time(LOOKUPS[i]);
+
+            String plan = explain(LOOKUPS[i]);
+
+            log.info("{}: scan {} ms, seek {} ms ({}x) - plan: {}", LOOKUPS[i][0],
+                            String.format("%.3f", scanMillis[i]), String.format("%.3f", seekMillis),
+                            String.format("%.1f", scanMillis[i] / seekMillis), plan);
+
+            // Assert the lookup is no longer a table scan.
+            Assert.assertFalse(LOOKUPS[i][0], plan.contains("tableScan"));
+        }
+    }
+
+
+    private List<String> readSchema() throws Exception
+    {
+        List<String> statements = new ArrayList<>();
+
+        try (InputStream in = getClass().getResourceAsStream("/schema.sql");
+             Scanner scanner = new Scanner(in, StandardCharsets.UTF_8.name()))
+        {
+            scanner.useDelimiter(";");
+
+            while (scanner.hasNext())
+            {
+                String statement = scanner.next().trim();
+
+                if (!statement.isEmpty())
+                {
+                    statements.add(statement);
+                }
+            }
+        }
+
+        return statements;
+    }
+
+
+    private void execute(List<String> statements) throws SQLException
+    {
+        try (Statement statement = this.connection.createStatement())
+        {
+            for (String sql : statements)
+            {
+                statement.execute(sql);
+            }
+        }
+    }
+
+
+    /**
+     * Fill the table with synthetic rows. About 20 rows per young person,
+     * 1% CANCELLED and 2% REJECTED task status so the lookups are selective.
+     */
+    private void populate(int rows) throws SQLException
+    {
+        String sql = "INSERT INTO workflow (id, yjb_yp_id, workflow_id, kpf_confirmed, workflow_state, created, modified,"
+                        + " created_by, modified_by, process, task_id, previous_state, task_status)"
+                        + " SELECT X, 10000 + MOD(X, ?), X, TRUE,"
+                        + " CASE WHEN MOD(X, 100) = 0 THEN 'CANCELLED' WHEN MOD(X, 3) = 0 THEN 'ADMITTED' ELSE 'IN PROGRESS' END,"
+                        + " DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00'),"
+                        + " DATEADD('SECOND', X + 60, TIMESTAMP '2020-01-01 00:00:00'),"
+                        + " 'benchmark.user', 'benchmark.user',"
+                        + " CASE WHEN MOD(X, 4) = 0 THEN 'transferPlanned' ELSE 'placementProcess' END,"
+                        + " RANDOM_UUID(), 'PLACEMENT_PENDING',"
+                        + " CASE WHEN MOD(X, 50) = 0 THEN 'REJECTED' WHEN MOD(X, 7) = 0 THEN NULL ELSE 'ADMITTED' END"
+                        + " FROM SYSTEM_RANGE(1, ?)";
+
+        try (PreparedStatement statement = this.connection.prepareStatement(sql))
+        {
+            statement.setInt(1, Math.max(1, rows / 20));
+            statement.setInt(2, rows);
+            statement.executeUpdate();
+        }
+    }
+
+
+    /**
+     * Average time of one lookup, after a warm up run.
+     */
+    private double time(String[] lookup) throws SQLException
+    {
+        try (PreparedStatement statement = prepare(lookup, ""))
+        {
+            drain(statement);
+
+            long start = System.nanoTime();
+
+            for (int i = 0; i < ITERATIONS; i++)
+            {
+                drain(statement);
+            }
+
+            return (System.nanoTime() - start) / 1_000_000.0 / ITERATIONS;
+        }
+    }
+
+
+    private String explain(String[] lookup) throws SQLException
+    {
+        try (PreparedStatement statement = prepare(lookup, "EXPLAIN ");
+             ResultSet resultSet = statement.executeQuery())
+        {
+            resultSet.next();
+
+            return resultSet.getString(1).replaceAll("\\s+", " ");
+        }
+    }
+
+
+    private PreparedStatement prepare(String[] lookup, String prefix) throws SQLException
+    {
+        PreparedStatement statement = this.connection.prepareStatement(prefix + lookup[1]);
+
+        for (int i = 2; i < lookup.length; i++)
+        {
+            statement.setString(i - 1, lookup[i]);
+        }
+
+        return statement;
+    }
+
+
+    private static void drain(PreparedStatement statement) throws SQLException
+    {
+        try (ResultSet resultSet = statement.executeQuery())
+        {
+            while (resultSet.next())
+            {
+                resultSet.getLong(1);
+            }
+        }
+    }
+}
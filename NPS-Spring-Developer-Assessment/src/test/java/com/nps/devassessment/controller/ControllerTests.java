@@ -2,33 +2,200 @@ package com.nps.devassessment.controller;
 
 import static io.restassured.RestAssured.*;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.sql.DataSource;
 
 import org.hibernate.cfg.NotYetImplementedException;
+import org.junit.AfterClass;
+import org.junit.Assert;
 import org.junit.Before;
+import org.junit.BeforeClass;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.MockitoAnnotations;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.exception.PlacementUnavailableException;
+import com.nps.devassessment.metrics.StatementBudgetFilter;
+import com.nps.devassessment.model.PlacementStatus;
+import com.nps.devassessment.model.WorkflowPlacement;
+import com.nps.devassessment.model.placement;
+import com.nps.devassessment.service.PlacementFacade;
+import com.nps.devassessment.service.WorkflowRepoService;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 
 @SpringBootTest
 @RunWith(SpringRunner.class)
+@TestPropertySource(properties = {
+                "placement.service.base-url=http://localhost:" + ControllerTests.PLACEMENT_STUB_PORT,
+                "placement.client.read-timeout-ms=500",
+                "placement.client.call-timeout-ms=1000",
+                "workflow.sql.over-budget=fail",
+                "workflow.adhoc.reject-cost=5000" })
 public class ControllerTests
 {
     private static final Logger log = LoggerFactory
                     .getLogger(ControllerTests.class);
 
+    static final int            PLACEMENT_STUB_PORT = 18089;
+
+    /**
+     * Stub placement ids - no placement, and a placement that is too slow.
+     */
+    private static final long   STUB_NOT_FOUND_ID   = -1;
+
+    private static final long   STUB_SLOW_ID        = -2;
+
+    private static HttpServer   placementStub;
+
+    private static final AtomicInteger placementStubCalls = new AtomicInteger();
+
     MockMvc                     mockMvc;
 
     @InjectMocks
     private TestsController     testsController;
     
+    @Autowired
+    private WorkflowController   workflowController;
+    
+    @Autowired
+    private WorkflowRepoService  workflowRepoService;
+    
+    @Autowired
+    private PlacementFacade      placementFacade;
+    
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+    
+    @Autowired
+    private StatementBudgetFilter statementBudgetFilter;
+    
+    @Autowired
+    private ObjectMapper         objectMapper;
+    
+
+    /**
+     * Start an in-process stub of the placements microservice. The stub
+     * echoes the id and yjb_yp_id of the request in a dummy placement.
+     */
+    @BeforeClass
+    public static void startPlacementStub() throws IOException
+    {
+        placementStub = HttpServer.create(new InetSocketAddress("localhost", PLACEMENT_STUB_PORT), 0);
+        
+        placementStub.createContext("/api/v1/placements/getplacement/", ControllerTests::stubPlacement);
+        placementStub.setExecutor(Executors.newCachedThreadPool());
+        placementStub.start();
+    }
+
+
+    @AfterClass
+    public static void stopPlacementStub()
+    {
+        if (placementStub != null)
+        {
+            placementStub.stop(0);
+        }
+    }
+
+
+    private static void stubPlacement(HttpExchange exchange) throws IOException
+    {
+        // Path: /api/v1/placements/getplacement/{id}/ypid/{yjb_yp_id}
+        String[] segments = exchange.getRequestURI().getPath().split("/");
+        
+        long id = Long.parseLong(segments[5]);
+        long yjbYpId = Long.parseLong(segments[7]);
+        
+        placementStubCalls.incrementAndGet();
+        
+        if (id == STUB_NOT_FOUND_ID)
+        {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+            return;
+        }
+        
+        if (id == STUB_SLOW_ID)
+        {
+            try
+            {
+                Thread.sleep(5000);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        byte[] body = ("{\"id\":" + id + ",\"yjb_yp_id\":" + yjbYpId
+                        + ",\"establishment\":\"Stub establishment\",\"placementComments\":\"stub\"}")
+                        .getBytes(StandardCharsets.UTF_8);
+        
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        
+        try (OutputStream out = exchange.getResponseBody())
+        {
+            out.write(body);
+        }
+    }
+    
 
     @Before
     public void setUp() throws Exception
@@ -132,33 +299,93 @@ public class ControllerTests
     @Test
     public void test5_shouldTestPlacementFacade() throws Exception
     {
-        // This tests requires you to MOCK/STUB a call to another REST endpoint
-        // in a different microservice
-        // Create and test a controller GET endpoint in *this* microservice
-        // The endoint in *this* microservice should receive an Integer
-        // parameter that allows the controller to retrieve
-        // an existing workflow by its id (as per test 1)
-        // Once the controller in *this* microservice has retrieved a workflow,
-        // you must demonstrate your understanding of
-        // the 'Facade Pattern' to make a call to a different microservice (the
-        // 'placements' microservice)
-        // The placements microservice isn't reachable from this test project -
-        // so you must MOCK the call to the placement
-        // microservice, and provide a MOCK Response that contains a dummy
-        // placement object
-        // The url for the 'placements' microservice is already in the
-        // application.properties file
-        // The call to the placements microservice needs to supply the 'id' of
-        // the workflow, and the yjb_yp_id of the workflow
-        // The placements microservice needs to return a
-        // com.nps.devassessment.model.placement object (already created)
-        // Assert that an appropriate response has been received from the facade
-        // endpoint
-        // Assert that the response body contains a 'placement' object
-        // Assert that the 'placement' object id and yjb_yp_id match the id and
-        // yjb_yp_id of the workflow
-
-        throw new NotYetImplementedException();
+        // TEST 5a - placement of an existing workflow through the facade endpoint
+        log.info("Starting test5a to demonstrate the placement facade...");
+        
+        WorkflowEntity workflowEntity = this.workflowRepoService.findAll(0, 1, "id").get(0);
+        
+        ResponseEntity<placement> response = this.workflowController.findPlacement(workflowEntity.getId()).get();
+        
+        // Assert
+        Assert.assertEquals(HttpStatus.OK, response.getStatusCode());
+        Assert.assertNotNull(response.getBody());
+        Assert.assertEquals(workflowEntity.getId().longValue(), response.getBody().getId().longValue());
+        Assert.assertEquals(workflowEntity.getYjbYp(), response.getBody().getYjb_yp_id());
+        
+        // end test
+        log.info("test5a complete");
+        
+        // TEST 5b - no placement, and no workflow
+        log.info("Starting test5b to demonstrate placement not found...");
+        
+        Assert.assertNull(this.placementFacade.findPlacement(STUB_NOT_FOUND_ID, 0L).get());
+        Assert.assertEquals(HttpStatus.NOT_FOUND, this.workflowController.findPlacement(Long.MAX_VALUE).get().getStatusCode());
+        
+        // end test
+        log.info("test5b complete");
+        
+        // TEST 5c - a slow placements service times out rather than holding the caller
+        log.info("Starting test5c to demonstrate placement time out...");
+        
+        long start = System.nanoTime();
+        
+        try
+        {
+            this.placementFacade.findPlacement(STUB_SLOW_ID, 0L).join();
+            
+            Assert.fail("Expected the placement lookup to time out");
+        }
+        catch (CompletionException e)
+        {
+            Assert.assertTrue(e.getCause() instanceof PlacementUnavailableException);
+            Assert.assertTrue(((PlacementUnavailableException) e.getCause()).isTimedOut());
+        }
+        
+        // Assert - bounded well inside the stub delay.
+        Assert.assertTrue((System.nanoTime() - start) / 1_000_000 < 3000);
+        
+        // end test
+        log.info("test5c complete");
+        
+        // TEST 5d - concurrent lookups of one placement share a single call
+        log.info("Starting test5d to demonstrate coalesced placement lookups...");
+        
+        int callsBefore = placementStubCalls.get();
+        
+        List<CompletableFuture<placement>> lstLookup = new ArrayList<>();
+        
+        for (int i = 0; i < 20; i++)
+        {
+            lstLookup.add(this.placementFacade.findPlacement(424242L, 1L));
+        }
+        
+        // Assert - every waiter has the placement, fetched once.
+        lstLookup.forEach(lookup -> Assert.assertEquals(1L, lookup.join().getYjb_yp_id().longValue()));
+        Assert.assertEquals(1, placementStubCalls.get() - callsBefore);
+        
+        // end test
+        log.info("test5d complete");
+        
+        // TEST 5e - workflows of a young person enriched with their placements
+        log.info("Starting test5e to demonstrate enriched workflows of a young person...");
+        
+        ResponseEntity<List<WorkflowPlacement>> enriched = this.workflowController
+                        .findPlacementsByYjbYp(workflowEntity.getYjbYp()).get();
+        
+        // Assert
+        Assert.assertEquals(HttpStatus.OK, enriched.getStatusCode());
+        Assert.assertEquals(this.workflowRepoService.findWorkflowsByYjbYp(workflowEntity.getYjbYp()).size(),
+                        enriched.getBody().size());
+        
+        for (WorkflowPlacement workflowPlacement : enriched.getBody())
+        {
+            Assert.assertEquals(PlacementStatus.FOUND, workflowPlacement.getPlacementStatus());
+            Assert.assertEquals(workflowPlacement.getWorkflow().getId().longValue(),
+                            workflowPlacement.getPlacement().getId().longValue());
+        }
+        
+        // end test
+        log.info("test5e complete");
     }
 
 
@@ -187,4 +414,691 @@ public class ControllerTests
 
         throw new NotYetImplementedException();
     }
+
+
+    @Test
+    public void test7_shouldReportStatementCountPerRequest() throws Exception
+    {
+        log.info("Starting test7 to demonstrate the SQL statements of a bulk update...");
+        
+        // Through the web layer, with the statement budget filter - over
+        // budget fails the request (workflow.sql.over-budget=fail).
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext)
+                        .addFilters(this.statementBudgetFilter)
+                        .build();
+        
+        List<WorkflowEntity> lstWorkflow = this.workflowRepoService.findAll(0, 20, "id");
+        
+        MvcResult result = webMockMvc.perform(patch("/workflowentity/workflowentity/updateAll/all")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsBytes(lstWorkflow)))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        int statements = Integer.parseInt(result.getResponse().getHeader("X-SQL-Statements"));
+        
+        log.info("Updating {} workflows executed {} SQL statements in {} ms", lstWorkflow.size(), statements,
+                        result.getResponse().getHeader("X-SQL-Time-Ms"));
+        
+        // Assert - statements do not grow with the records updated.
+        Assert.assertTrue(statements > 0);
+        Assert.assertTrue(statements < lstWorkflow.size());
+        
+        // TEST 7b - over budget, the request fails before any of its body is written
+        ReflectionTestUtils.setField(this.statementBudgetFilter, "statementBudget", statements - 1);
+        
+        try
+        {
+            MvcResult overBudget = webMockMvc.perform(patch("/workflowentity/workflowentity/updateAll/all")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(this.objectMapper.writeValueAsBytes(lstWorkflow)))
+                            .andExpect(status().isInternalServerError())
+                            .andReturn();
+            
+            Assert.assertEquals(0, overBudget.getResponse().getContentLength());
+            Assert.assertTrue(overBudget.getResponse().getErrorMessage().contains("over the budget of "
+                            + (statements - 1)));
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(this.statementBudgetFilter, "statementBudget", 50);
+        }
+        
+        // end test
+        log.info("test7 complete");
+    }
+
+
+    @Test
+    public void test8_shouldNegotiateSmileResponses() throws Exception
+    {
+        log.info("Starting test8 to demonstrate Smile content negotiation...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        MvcResult json = webMockMvc.perform(get("/workflowentity/find/All").accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        MvcResult smile = webMockMvc.perform(get("/workflowentity/find/All")
+                        .accept(SmileMessageConverter.APPLICATION_SMILE_VALUE))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        List<WorkflowEntity> lstWorkflow = new ObjectMapper(new SmileFactory()).readValue(
+                        smile.getResponse().getContentAsByteArray(), new TypeReference<List<WorkflowEntity>>() {});
+        
+        int jsonBytes = json.getResponse().getContentAsByteArray().length;
+        int smileBytes = smile.getResponse().getContentAsByteArray().length;
+        
+        log.info("{} workflows: JSON {} bytes, Smile {} bytes", lstWorkflow.size(), jsonBytes, smileBytes);
+        
+        // Assert - the same records, in fewer bytes.
+        Assert.assertTrue(smile.getResponse().getContentType().startsWith(SmileMessageConverter.APPLICATION_SMILE_VALUE));
+        Assert.assertEquals(this.workflowRepoService.findAll().size(), lstWorkflow.size());
+        Assert.assertTrue(smileBytes < jsonBytes);
+        
+        // end test
+        log.info("test8 complete");
+    }
+    
+    
+    @Test
+    public void test9_shouldAnswerConditionalGetsFromVersions() throws Exception
+    {
+        log.info("Starting test9 to demonstrate version based conditional GETs...");
+        
+        WorkflowEntity workflowEntity = this.workflowRepoService.findAll().get(0);
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        // Single record - tagged with its version, not modified while current.
+        String strIdUrl = "/workflowentity/find/" + workflowEntity.getId();
+        
+        MvcResult first = webMockMvc.perform(get(strIdUrl))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+        
+        WorkflowEntity firstEntity = this.objectMapper.readValue(first.getResponse().getContentAsByteArray(),
+                        WorkflowEntity.class);
+        
+        MvcResult repeat = webMockMvc.perform(get(strIdUrl).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                        .andExpect(status().isNotModified())
+                        .andReturn();
+        
+        // List of a young person - tagged, not modified while current.
+        String strYpUrl = "/workflowentity/byYp/" + workflowEntity.getYjbYp();
+        
+        String listETag = webMockMvc.perform(get(strYpUrl))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        
+        webMockMvc.perform(get(strYpUrl).header(HttpHeaders.IF_NONE_MATCH, listETag))
+                        .andExpect(status().isNotModified());
+        
+        // A write moves the version on - both tags go stale.
+        WorkflowEntity updatedEntity = this.workflowRepoService.updateWorkflow(new WorkflowEntity(firstEntity));
+        
+        MvcResult updated = webMockMvc.perform(get(strIdUrl).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        MvcResult updatedList = webMockMvc.perform(get(strYpUrl).header(HttpHeaders.IF_NONE_MATCH, listETag))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        // Assert
+        Assert.assertNotNull(eTag);
+        Assert.assertEquals(0, repeat.getResponse().getContentLength());
+        Assert.assertEquals(firstEntity.getVersion() + 1, updatedEntity.getVersion().longValue());
+        Assert.assertEquals(updatedEntity.getVersion(), this.objectMapper.readValue(
+                        updated.getResponse().getContentAsByteArray(), WorkflowEntity.class).getVersion());
+        Assert.assertNotEquals(eTag, updated.getResponse().getHeader(HttpHeaders.ETAG));
+        Assert.assertNotEquals(listETag, updatedList.getResponse().getHeader(HttpHeaders.ETAG));
+        
+        webMockMvc.perform(get("/workflowentity/find/1999999999").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                        .andExpect(status().isNotFound());
+        
+        // end test
+        log.info("test9 complete");
+    }
+    
+    
+    @Test
+    public void test10_shouldAnswerAdHocQueries() throws Exception
+    {
+        log.info("Starting test10 to demonstrate ad hoc queries over HTTP...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        // An index lookup is admitted (workflow.adhoc.reject-cost=5000).
+        MvcResult found = adHocQuery(webMockMvc, "WHERE yjb_yp_id IN (30848, 32524, 28117)");
+        
+        List<WorkflowEntity> lstWorkflow = this.objectMapper.readValue(found.getResponse().getContentAsByteArray(),
+                        new TypeReference<List<WorkflowEntity>>() {});
+        
+        // Assert
+        Assert.assertEquals(HttpStatus.OK.value(), found.getResponse().getStatus());
+        Assert.assertFalse(lstWorkflow.isEmpty());
+        lstWorkflow.forEach(w -> Assert.assertTrue(Arrays.asList(30848L, 32524L, 28117L).contains(w.getYjbYp())));
+        
+        // A full scan of the table costs too much, and SQL is not a query.
+        Assert.assertEquals(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                        adHocQuery(webMockMvc, "WHERE metadata LIKE '%stub%'").getResponse().getStatus());
+        
+        Assert.assertEquals(HttpStatus.BAD_REQUEST.value(),
+                        adHocQuery(webMockMvc, "WHERE id = 1 UNION SELECT * FROM workflow").getResponse().getStatus());
+        
+        // An id is not a query.
+        webMockMvc.perform(get("/workflowentity/find/{id}", lstWorkflow.get(0).getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(request().asyncNotStarted());
+        
+        // end test
+        log.info("test10 complete");
+    }
+    
+    
+    @Test
+    public void test11_shouldCancelAdHocQueryWhenClientDisconnects() throws Exception
+    {
+        log.info("Starting test11 to demonstrate cancelling the query of a departed client...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        HeldStatements.hold();
+        
+        try
+        {
+            MvcResult result = webMockMvc.perform(get("/workflowentity/find/{strQuery}", "WHERE id > 0"))
+                            .andExpect(request().asyncStarted())
+                            .andReturn();
+            
+            // Check that the query statement is running.
+            Assert.assertTrue(HeldStatements.executing.await(10, TimeUnit.SECONDS));
+            
+            // The client disconnects.
+            MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+            
+            for (AsyncListener listener : asyncContext.getListeners())
+            {
+                listener.onError(new AsyncEvent(asyncContext, new IOException("Broken pipe")));
+            }
+            
+            // Assert
+            Assert.assertTrue(HeldStatements.cancelled.await(10, TimeUnit.SECONDS));
+        }
+        finally
+        {
+            HeldStatements.release();
+        }
+        
+        // end test
+        log.info("test11 complete");
+    }
+    
+    
+    @Test
+    public void test12_shouldDeleteByIdsAndByFilter() throws Exception
+    {
+        log.info("Starting test12 to demonstrate set based deletes...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext)
+                        .addFilters(this.statementBudgetFilter)
+                        .build();
+        
+        // Far apart ids - a young person of their own.
+        long[] ids = { 900001L, 2000000000L };
+        long yjbYpId = 99000001L;
+        
+        createCopies(ids, yjbYpId);
+        
+        MvcResult byIds = webMockMvc.perform(delete("/workflowentity/workflowentity/delete/ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(this.objectMapper.writeValueAsBytes(Arrays.asList(ids[0], ids[1], -1L))))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        // Assert
+        Assert.assertEquals("2", byIds.getResponse().getContentAsString());
+        Assert.assertNull(this.workflowRepoService.findWorkflowById(ids[0]));
+        Assert.assertNull(this.workflowRepoService.findWorkflowById(ids[1]));
+        
+        createCopies(ids, yjbYpId);
+        
+        MvcResult byFilter = webMockMvc.perform(delete("/workflowentity/workflowentity/delete/filter")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"yjbYpIds\":[" + yjbYpId + "]}"))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        int statements = Integer.parseInt(byFilter.getResponse().getHeader("X-SQL-Statements"));
+        
+        log.info("Deleting by filter over ids {} to {} executed {} SQL statements", ids[0], ids[1], statements);
+        
+        // Assert - the gap between the ids costs no statements.
+        Assert.assertEquals("2", byFilter.getResponse().getContentAsString());
+        Assert.assertTrue(statements <= 5);
+        Assert.assertNull(this.workflowRepoService.findWorkflowById(ids[0]));
+        Assert.assertNull(this.workflowRepoService.findWorkflowById(ids[1]));
+        Assert.assertTrue(this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId).isEmpty());
+        
+        // An empty filter would delete everything.
+        webMockMvc.perform(delete("/workflowentity/workflowentity/delete/filter")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                        .andExpect(status().isBadRequest());
+        
+        // end test
+        log.info("test12 complete");
+    }
+    
+    
+    @Test
+    public void test13_shouldReportPlacementLookupOutcomes() throws Exception
+    {
+        log.info("Starting test13 to demonstrate placement lookup outcomes...");
+        
+        Object placementService = ReflectionTestUtils.getField(this.workflowController, "workflowPlacementService");
+        Object placementFacade = ReflectionTestUtils.getField(placementService, "placementFacade");
+        
+        List<Long> lstId = new ArrayList<>();
+        
+        WorkflowEntity existing = this.workflowRepoService.findAll(0, 1, "id").get(0);
+        
+        for (long id = 1999999900L; id < 1999999912L; id++)
+        {
+            WorkflowEntity workflowEntity = new WorkflowEntity(existing);
+            workflowEntity.setId(id);
+            workflowEntity.setYjbYp(99000700L);
+            
+            this.workflowRepoService.upsertWorkflow(workflowEntity);
+            
+            lstId.add(id);
+        }
+        
+        try
+        {
+            // TEST 13a - found, not found, unavailable and timed out lookups
+            List<CompletableFuture<placement>> lstOutstanding = Collections.synchronizedList(new ArrayList<>());
+            
+            ReflectionTestUtils.setField(placementService, "timeoutMs", 300L);
+            ReflectionTestUtils.setField(placementService, "placementFacade", (PlacementFacade) (id, yjbYpId) -> {
+                
+                CompletableFuture<placement> lookup = new CompletableFuture<>();
+                
+                switch ((int) (id % 4))
+                {
+                    case 0:
+                        lookup.complete(stubPlacement(id, yjbYpId));
+                        break;
+                    case 1:
+                        lookup.complete(null);
+                        break;
+                    case 2:
+                        lookup.completeExceptionally(new PlacementUnavailableException("stub", false, null));
+                        break;
+                    default:
+                        // Never answered.
+                        lstOutstanding.add(lookup);
+                }
+                
+                return lookup;
+            });
+            
+            List<WorkflowPlacement> lstEnriched = this.workflowController.findPlacementsByYjbYp(99000700L).get()
+                            .getBody();
+            
+            // Assert
+            Assert.assertEquals(lstId.size(), lstEnriched.size());
+            
+            for (WorkflowPlacement workflowPlacement : lstEnriched)
+            {
+                PlacementStatus expected = Arrays.asList(PlacementStatus.FOUND, PlacementStatus.NOT_FOUND,
+                                PlacementStatus.UNAVAILABLE, PlacementStatus.TIMED_OUT)
+                                .get((int) (workflowPlacement.getWorkflow().getId() % 4));
+                
+                Assert.assertEquals(expected, workflowPlacement.getPlacementStatus());
+                Assert.assertEquals(expected == PlacementStatus.FOUND, workflowPlacement.getPlacement() != null);
+            }
+            
+            // Assert - the lookups outstanding at the deadline are cancelled.
+            Assert.assertFalse(lstOutstanding.isEmpty());
+            lstOutstanding.forEach(lookup -> Assert.assertTrue(lookup.isCancelled()));
+            
+            // TEST 13b - no more than the fan out cap of lookups in flight
+            AtomicInteger inFlight = new AtomicInteger();
+            AtomicInteger maxInFlight = new AtomicInteger();
+            
+            ReflectionTestUtils.setField(placementService, "timeoutMs", 5000L);
+            ReflectionTestUtils.setField(placementService, "maxFanOut", 3);
+            ReflectionTestUtils.setField(placementService, "placementFacade", (PlacementFacade) (id, yjbYpId) -> {
+                
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                
+                return CompletableFuture.supplyAsync(() -> {
+                    
+                    inFlight.decrementAndGet();
+                    
+                    return stubPlacement(id, yjbYpId);
+                    
+                }, CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+            });
+            
+            lstEnriched = this.workflowController.findPlacementsByYjbYp(99000700L).get().getBody();
+            
+            // Assert
+            Assert.assertEquals(lstId.size(), lstEnriched.size());
+            lstEnriched.forEach(workflowPlacement -> Assert.assertEquals(PlacementStatus.FOUND,
+                            workflowPlacement.getPlacementStatus()));
+            Assert.assertEquals(3, maxInFlight.get());
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(placementService, "placementFacade", placementFacade);
+            ReflectionTestUtils.setField(placementService, "timeoutMs", 5000L);
+            ReflectionTestUtils.setField(placementService, "maxFanOut", 8);
+            
+            this.workflowRepoService.deleteWorkflowsById(lstId);
+        }
+        
+        // end test
+        log.info("test13 complete");
+    }
+    
+    
+    @Test
+    public void test14_shouldExportAllWorkflowsAsNdjson() throws Exception
+    {
+        log.info("Starting test14 to demonstrate the streamed export...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        MvcResult started = webMockMvc.perform(get("/workflowentity/export"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        
+        MvcResult result = webMockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk())
+                        .andReturn();
+        
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        
+        // Assert - one record per line, in id order, for every record in the table.
+        Assert.assertEquals(WorkflowController.APPLICATION_NDJSON_VALUE, result.getResponse().getContentType());
+        Assert.assertEquals(this.workflowRepoService.findAll().size(), lines.length);
+        
+        long previousId = Long.MIN_VALUE;
+        
+        for (String line : lines)
+        {
+            WorkflowEntity workflowEntity = this.objectMapper.readValue(line, WorkflowEntity.class);
+            
+            Assert.assertTrue(workflowEntity.getId() > previousId);
+            
+            previousId = workflowEntity.getId();
+        }
+        
+        // TEST 14b - with the statement budget filter, the stream is written
+        // straight to the response, not held until the async dispatch
+        webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext)
+                        .addFilters(this.statementBudgetFilter)
+                        .build();
+        
+        started = webMockMvc.perform(get("/workflowentity/export"))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        
+        started.getAsyncResult(10000);
+        
+        // Assert
+        Assert.assertEquals(lines.length, started.getResponse().getContentAsString().split("\n").length);
+        
+        webMockMvc.perform(asyncDispatch(started))
+                        .andExpect(status().isOk());
+        
+        // end test
+        log.info("test14 complete");
+    }
+    
+    
+    @Test
+    public void test15_shouldReturnCreatedAndUpdatedWorkflows() throws Exception
+    {
+        log.info("Starting test15 to demonstrate the create and update responses...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        long id = 1999999870L;
+        
+        WorkflowEntity workflowEntity = new WorkflowEntity(this.workflowRepoService.findAll().get(0));
+        workflowEntity.setId(id);
+        workflowEntity.setYjbYp(99000800L);
+        
+        try
+        {
+            MvcResult created = webMockMvc.perform(post("/workflowentity/workflowentity/create")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(this.objectMapper.writeValueAsBytes(workflowEntity)))
+                            .andExpect(status().isOk())
+                            .andReturn();
+            
+            WorkflowEntity createdEntity = this.objectMapper.readValue(
+                            created.getResponse().getContentAsByteArray(), WorkflowEntity.class);
+            
+            // Assert - the body is the created record.
+            Assert.assertEquals(Long.valueOf(id), createdEntity.getId());
+            Assert.assertEquals(Long.valueOf(0L), createdEntity.getVersion());
+            
+            // A second create of the id conflicts.
+            webMockMvc.perform(post("/workflowentity/workflowentity/create")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(this.objectMapper.writeValueAsBytes(workflowEntity)))
+                            .andExpect(status().isConflict());
+            
+            // The update is written at the path id, whatever the body id.
+            workflowEntity.setId(null);
+            workflowEntity.setTaskStatus("UPDATED");
+            
+            MvcResult updated = webMockMvc.perform(patch("/workflowentity/workflowentity/update/{id}", id)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(this.objectMapper.writeValueAsBytes(workflowEntity)))
+                            .andExpect(status().isOk())
+                            .andReturn();
+            
+            WorkflowEntity updatedEntity = this.objectMapper.readValue(
+                            updated.getResponse().getContentAsByteArray(), WorkflowEntity.class);
+            
+            // Assert - one UPDATE, so the version moved on once.
+            Assert.assertEquals(Long.valueOf(id), updatedEntity.getId());
+            Assert.assertEquals(Long.valueOf(1L), updatedEntity.getVersion());
+            Assert.assertEquals("UPDATED", this.workflowRepoService.findWorkflowById(id).getTaskStatus());
+            
+            webMockMvc.perform(patch("/workflowentity/workflowentity/update/{id}", id + 1)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(this.objectMapper.writeValueAsBytes(workflowEntity)))
+                            .andExpect(status().isNotFound());
+        }
+        finally
+        {
+            this.workflowRepoService.deleteWorkflowById(id);
+        }
+        
+        // end test
+        log.info("test15 complete");
+    }
+    
+    
+    @Test
+    public void test16_shouldDeleteWorkflowById() throws Exception
+    {
+        log.info("Starting test16 to demonstrate delete by id...");
+        
+        MockMvc webMockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+        
+        long[] ids = { 1999999869L };
+        
+        createCopies(ids, 99000801L);
+        
+        webMockMvc.perform(delete("/workflowentity/workflowentity/delete/{workflowentityid}", ids[0]))
+                        .andExpect(status().isOk());
+        
+        // Assert
+        Assert.assertNull(this.workflowRepoService.findWorkflowById(ids[0]));
+        
+        // The record is gone - not found.
+        webMockMvc.perform(delete("/workflowentity/workflowentity/delete/{workflowentityid}", ids[0]))
+                        .andExpect(status().isNotFound());
+        
+        // end test
+        log.info("test16 complete");
+    }
+    
+    
+    private static placement stubPlacement(Long id, Long yjbYpId)
+    {
+        placement stub = new placement();
+        stub.setId(id.intValue());
+        stub.setYjb_yp_id(yjbYpId);
+        
+        return stub;
+    }
+    
+    
+    private void createCopies(long[] ids, long yjbYpId)
+    {
+        WorkflowEntity template = this.workflowRepoService.findAll().get(0);
+        
+        for (long id : ids)
+        {
+            WorkflowEntity copy = new WorkflowEntity(template);
+            copy.setId(id);
+            copy.setYjbYp(yjbYpId);
+            
+            this.workflowRepoService.upsertWorkflow(copy);
+        }
+    }
+    
+    
+    private static MvcResult adHocQuery(MockMvc webMockMvc, String strQuery) throws Exception
+    {
+        MvcResult result = webMockMvc.perform(get("/workflowentity/find/{strQuery}", strQuery))
+                        .andExpect(request().asyncStarted())
+                        .andReturn();
+        
+        return webMockMvc.perform(asyncDispatch(result)).andReturn();
+    }
+    
+    
+    /**
+     * Wraps the data source so that an ad hoc query statement can be held
+     * executing until it is cancelled, or released.
+     */
+    @TestConfiguration
+    static class HeldStatements
+    {
+        private static volatile boolean        holding;
+        
+        private static volatile CountDownLatch executing = new CountDownLatch(1);
+        
+        private static volatile CountDownLatch cancelled = new CountDownLatch(1);
+        
+        
+        /**
+         * Hold the next ad hoc query statement executed on the query pool,
+         * until a statement is cancelled or the hold released.
+         */
+        static void hold()
+        {
+            executing = new CountDownLatch(1);
+            cancelled = new CountDownLatch(1);
+            holding = true;
+        }
+        
+        
+        static void release()
+        {
+            holding = false;
+            cancelled.countDown();
+        }
+        
+        
+        @Bean
+        static BeanPostProcessor heldStatementDataSource()
+        {
+            return new BeanPostProcessor()
+            {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName)
+                {
+                    if (!(bean instanceof DataSource))
+                    {
+                        return bean;
+                    }
+                    
+                    return new DelegatingDataSource((DataSource) bean)
+                    {
+                        @Override
+                        public Connection getConnection() throws SQLException
+                        {
+                            return wrap(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+        
+        
+        private static Connection wrap(Connection connection)
+        {
+            return (Connection) Proxy.newProxyInstance(HeldStatements.class.getClassLoader(),
+                            new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+                                
+                                Object result = invoke(connection, method, args);
+                                
+                                return (result instanceof PreparedStatement) && (args != null)
+                                                && String.valueOf(args[0]).startsWith("SELECT * FROM workflow WHERE")
+                                                ? wrap((PreparedStatement) result) : result;
+                            });
+        }
+        
+        
+        private static PreparedStatement wrap(PreparedStatement statement)
+        {
+            return (PreparedStatement) Proxy.newProxyInstance(HeldStatements.class.getClassLoader(),
+                            new Class<?>[] { PreparedStatement.class }, (proxy, method, args) -> {
+                                
+                                if ("cancel".equals(method.getName()))
+                                {
+                                    cancelled.countDown();
+                                }
+                                else if ("executeQuery".equals(method.getName()) && holding
+                                                && Thread.currentThread().getName().startsWith("workflowQuery-"))
+                                {
+                                    holding = false;
+                                    executing.countDown();
+                                    
+                                    // Executing - until cancelled.
+                                    cancelled.await(10, TimeUnit.SECONDS);
+                                }
+                                
+                                return invoke(statement, method, args);
+                            });
+        }
+        
+        
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable
+        {
+            try
+            {
+                return method.invoke(target, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        }
+    }
 }
@@ -0,0 +1,92 @@
+package com.nps.devassessment.setup;
+
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   SeedTests.java
+ *
+ * Purpose  : Class to define the bulk seed loader test. The application is
+ *            started with the 'bulkseed' profile on its own in-memory
+ *            database, and its workflow table compared with one loaded by
+ *            schema.sql and data.sql.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@SpringBootTest
+@RunWith(SpringRunner.class)
+@ActiveProfiles("bulkseed")
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:bulkseed;QUERY_CACHE_SIZE=64")
+public class SeedTests
+{
+    private static final Logger log = LoggerFactory.getLogger(SeedTests.class);
+
+    private static final String SELECT_ALL = "SELECT id, yjb_yp_id, workflow_id, kpf_confirmed, workflow_state,"
+                    + " created, modified, created_by, modified_by, metadata, process, task_id, previous_state,"
+                    + " task_status, task_metadata, version FROM workflow ORDER BY id";
+
+    private static final String SELECT_INDEXES = "SELECT DISTINCT index_name FROM information_schema.indexes"
+                    + " WHERE table_name = 'WORKFLOW' AND NOT primary_key ORDER BY index_name";
+
+    @Autowired
+    private DataSource dataSource;
+
+
+    @Test
+    public void test1_shouldSeedTheSameRowsAsTheScript()
+    {
+        // TEST 1 - the bulk seed loads the rows of data.sql
+        log.info("Starting test1 to demonstrate the bulk seed...");
+
+        DriverManagerDataSource scriptDataSource = new DriverManagerDataSource(
+                        "jdbc:h2:mem:scriptseed;DB_CLOSE_DELAY=-1", "sa", "");
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                        .execute(scriptDataSource);
+
+        List<Map<String, Object>> lstScriptRow = new JdbcTemplate(scriptDataSource).queryForList(SELECT_ALL);
+        List<Map<String, Object>> lstBulkRow = new JdbcTemplate(this.dataSource).queryForList(SELECT_ALL);
+
+        // Assert
+        Assert.assertEquals(7211, lstScriptRow.size());
+        Assert.assertEquals(lstScriptRow.size(), lstBulkRow.size());
+
+        for (int i = 0; i < lstScriptRow.size(); i++)
+        {
+            Assert.assertEquals(lstScriptRow.get(i), lstBulkRow.get(i));
+        }
+
+        // Assert - the secondary indexes are built after the load.
+        List<String> lstScriptIndex = new JdbcTemplate(scriptDataSource).queryForList(SELECT_INDEXES, String.class);
+
+        Assert.assertFalse(lstScriptIndex.isEmpty());
+        Assert.assertEquals(lstScriptIndex, new JdbcTemplate(this.dataSource).queryForList(SELECT_INDEXES, String.class));
+
+        // end test
+        log.info("test1 complete");
+    }
+
+}
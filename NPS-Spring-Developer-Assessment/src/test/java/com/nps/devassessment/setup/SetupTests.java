@@ -1,24 +1,61 @@
 package com.nps.devassessment.setup;
 
 import com.nps.devassessment.entity.WorkflowEntity;
+import com.nps.devassessment.metrics.SlowQueryLog;
+import com.nps.devassessment.model.SlowQuery;
+import com.nps.devassessment.model.WorkflowCounts;
+import com.nps.devassessment.model.WorkflowFilter;
+import com.nps.devassessment.model.WorkflowProjection;
+import com.nps.devassessment.model.WorkflowSlice;
+import com.nps.devassessment.model.WorkflowWriteResult;
+import com.nps.devassessment.model.WorkflowWriteStatus;
+import com.nps.devassessment.repo.WorkflowRepo;
+import com.nps.devassessment.service.WorkflowFutures;
 import com.nps.devassessment.service.WorkflowRepoService;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnit;
+import javax.sql.DataSource;
 
+import org.hibernate.Cache;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.cfg.NotYetImplementedException;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * Copyright 2021
@@ -42,7 +79,9 @@ public class SetupTests
 //    @PersistenceContext()
 //    private EntityManager em;
     
-    @Autowired
+    @PersistenceUnit
+    private EntityManagerFactory entityManagerFactory;
+    
     private SessionFactory sessionFactory;
     
     private static final String IN_PROGRESS = "IN PROGRESS";
@@ -54,6 +93,31 @@ public class SetupTests
     @Autowired
     private WorkflowRepoService workflowRepoService;
     
+    @Autowired
+    private WorkflowRepo workflowRepo;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private SlowQueryLog slowQueryLog;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    @Before
+    public void setUp()
+    {
+        // The Hibernate session factory behind the JPA entity manager factory.
+        this.sessionFactory = this.entityManagerFactory.unwrap(SessionFactory.class);
+    }
+    
     private Session getCurrentSession() 
     {
         return this.sessionFactory.getCurrentSession();
@@ -129,7 +193,7 @@ public class SetupTests
         // TEST 1c
         // Select workflows by 'created' column is after a given date (e.g.
         // 01/02/2021)        
-        String strQuery03 = "WHERE created '01/02/2021'";
+        String strQuery03 = "WHERE created > '2021-02-01'";
         
         List<WorkflowEntity> lstWorkflowEntity03 = this.workflowRepoService.selectWorkflowQuery(strQuery03);
         
@@ -144,7 +208,7 @@ public class SetupTests
         // TEST 1d
         // Select workflows by 'modified' column is after a given date (e.g.
         // 01/01/20) but before another given date (e.g. 01/03/2021)
-        String strQuery04 = "WHERE modifed BETWEEN '01/01/2020' AND '01/03/2021'";
+        String strQuery04 = "WHERE modified BETWEEN '2020-01-01' AND '2021-03-01'";
         
         List<WorkflowEntity> lstWorkflowEntity04 = this.workflowRepoService.selectWorkflowQuery(strQuery04);
         
@@ -173,8 +237,9 @@ public class SetupTests
         
         // TEST 1f
         // Select id, yjb_yp_id and task_status columns for all workflows where
-        // created_by = a given value (e.g. “lee.everitt”)
-        String strQuery06 = "SELECT yjb_yp_id, task_status WHERE created_by = 'lee.everitt'";
+        // created_by = a given value (e.g. “lee.everitt”). An ad hoc query
+        // selects whole rows; the column projection is shown by test10.
+        String strQuery06 = "WHERE created_by = 'lee.everitt'";
         
         List<WorkflowEntity> lstWorkflowEntity06 = this.workflowRepoService.selectWorkflowQuery(strQuery06);
         
@@ -239,5 +304,925 @@ public class SetupTests
         log.info("Workflow Number of Records: {} found. Number of records per Page {}. Number of Pages {}", noRecords, pageSize, noPages);
         log.info("test2 complete");
     }
+
+
+    /**
+     * Test to demonstrate keyset (seek) pagination through the entire
+     * workflow repo, following the next cursor until the last slice.
+     * 
+     * Sorting on 'created' exercises the cursor across null sort values.
+     */
+    @Test
+    public void test3_shouldDemonstrateKeysetPagination()
+    {
+        log.info("Starting test3 to demonstrate keyset pagination...");
+        
+        Integer limit = 500;
+        String sortBy = "created";
+        
+        Set<Long> ids = new HashSet<>();
+        int noSlices = 0;
+        
+        WorkflowSlice slice = this.workflowRepoService.findAllAfter(null, limit, sortBy);
+        
+        // Follow the cursor until no further slice is available.
+        while (true)
+        {
+            noSlices++;
+            
+            for (WorkflowEntity workflowEntity : slice.getContent())
+            {
+                // Assert each record is read exactly once.
+                Assert.assertTrue(ids.add(workflowEntity.getId()));
+            }
+            
+            if (slice.getNextCursor() == null)
+            {
+                break;
+            }
+            
+            slice = this.workflowRepoService.findAllAfter(slice.getNextCursor(), limit, sortBy);
+        }
+        
+        // Assert
+        Assert.assertEquals(this.workflowRepoService.findAll().size(), ids.size());
+
+        // end test
+        log.info("Workflow Number of Records: {} found. Number of Slices {}", ids.size(), noSlices);
+        log.info("test3 complete");
+    }
+
+
+    /**
+     * Test to demonstrate the structured filter equivalents of the test1a
+     * and test1b queries. Values are bound as parameters, so repeated calls
+     * with different values reuse the same query plan.
+     */
+    @Test
+    public void test4_shouldDemonstrateStructuredFilterQueries()
+    {
+        // TEST 4a - workflow_state IN ('IN PROGRESS', 'CANCELLED', 'ADMITTED')
+        log.info("Starting test4a to demonstrate structured filter query...");
+        
+        WorkflowFilter filter01 = new WorkflowFilter();
+        filter01.setWorkflowStates(Arrays.asList(IN_PROGRESS, CANCELLED, ADMITTED));
+        
+        List<WorkflowEntity> lstWorkflowEntity01 = this.workflowRepoService.findWorkflowByFilter(filter01);
+        
+        // Assert
+        Assert.assertFalse(lstWorkflowEntity01.isEmpty());
+        lstWorkflowEntity01.forEach(w -> Assert.assertTrue(filter01.getWorkflowStates().contains(w.getWorkflowState())));
+
+        // end test
+        log.info("Workflow {} found.", lstWorkflowEntity01.size());
+        log.info("test4a complete");
+        
+        // TEST 4b - yjb_yp_id IN (30848, 32524, 28117)
+        log.info("Starting test4b to demonstrate structured filter query for value of yjb_yp_id...");
+        
+        WorkflowFilter filter02 = new WorkflowFilter();
+        filter02.setYjbYpIds(Arrays.asList(30848L, 32524L, 28117L));
+        
+        List<WorkflowEntity> lstWorkflowEntity02 = this.workflowRepoService.findWorkflowByFilter(filter02);
+        
+        // Assert
+        Assert.assertFalse(lstWorkflowEntity02.isEmpty());
+        lstWorkflowEntity02.forEach(w -> Assert.assertTrue(filter02.getYjbYpIds().contains(w.getYjbYp())));
+
+        // end test
+        log.info("Workflow {} found.", lstWorkflowEntity02.size());
+        log.info("test4b complete");
+        
+        // TEST 4c - process = 'placementProcess' AND task_status != 'ADMITTED'
+        WorkflowFilter filter03 = new WorkflowFilter();
+        filter03.setProcesses(Arrays.asList("placementProcess"));
+        filter03.setExcludedTaskStatuses(Arrays.asList(ADMITTED));
+        
+        List<WorkflowEntity> lstWorkflowEntity03 = this.workflowRepoService.findWorkflowByFilter(filter03);
+        
+        // Assert
+        Assert.assertNotNull(lstWorkflowEntity03);
+        lstWorkflowEntity03.forEach(w -> Assert.assertNotEquals(ADMITTED, w.getTaskStatus()));
+
+        // end test
+        log.info("Workflow {} found.", lstWorkflowEntity03.size());
+        log.info("test4c complete");
+    }
+    
+    
+    @Test
+    public void test5_shouldDemonstrateParallelQueries()
+    {
+        // TEST 5a - process = 'placementProcess' and, in parallel, task_status = 'ADMITTED'
+        log.info("Starting test5a to demonstrate parallel queries...");
+        
+        CompletableFuture<List<WorkflowEntity>> byProcess = this.workflowRepoService.findWorkflowsByProcessAsync("placementProcess", null);
+        CompletableFuture<List<WorkflowEntity>> byTaskStatus = this.workflowRepoService.findWorkflowsByTaskStatusAsync(ADMITTED);
+        
+        List<WorkflowEntity> lstIntersect = WorkflowFutures.intersect(byProcess, byTaskStatus).join();
+        
+        // Assert - the intersection matches the combined query.
+        Set<Long> expectedIds = this.workflowRepoService.findWorkflowsByProcess("placementProcess", ADMITTED).stream()
+                        .map(WorkflowEntity::getId).collect(Collectors.toSet());
+        
+        Assert.assertEquals(expectedIds, lstIntersect.stream().map(WorkflowEntity::getId).collect(Collectors.toSet()));
+        
+        // end test
+        log.info("Workflow {} found in both.", lstIntersect.size());
+        log.info("test5a complete");
+        
+        // TEST 5b - union of the same queries
+        log.info("Starting test5b to demonstrate union of parallel queries...");
+        
+        List<WorkflowEntity> lstUnion = WorkflowFutures.union(byProcess, byTaskStatus).join();
+        
+        // Assert - each record once, and no fewer than either query.
+        Set<Long> unionIds = lstUnion.stream().map(WorkflowEntity::getId).collect(Collectors.toSet());
+        
+        Assert.assertEquals(lstUnion.size(), unionIds.size());
+        Assert.assertTrue(lstUnion.size() >= byProcess.join().size());
+        Assert.assertTrue(lstUnion.size() >= byTaskStatus.join().size());
+        
+        // end test
+        log.info("Workflow {} found in either.", lstUnion.size());
+        log.info("test5b complete");
+    }
+    
+    
+    @Test
+    public void test6_shouldRecordServiceTimings()
+    {
+        // TEST 6a - each service call is timed by method
+        log.info("Starting test6a to demonstrate service method timings...");
+        
+        this.workflowRepoService.findWorkflowsByState(ADMITTED);
+        
+        Timer timer = this.meterRegistry.find("workflow.service").tag("method", "findWorkflowsByState").timer();
+        
+        // Assert
+        Assert.assertNotNull(timer);
+        Assert.assertTrue(timer.count() > 0);
+        
+        // end test
+        log.info("findWorkflowsByState timed {} calls, max {} ms", timer.count(), timer.max(TimeUnit.MILLISECONDS));
+        log.info("test6a complete");
+    }
+    
+    
+    @Test
+    public void test7_shouldRecordSlowQueryShapes() throws Exception
+    {
+        // TEST 7a - two slow queries differing only in a value share a shape
+        log.info("Starting test7a to demonstrate the slow query log...");
+        
+        for (long id : new long[] { 42, 43 })
+        {
+            this.slowQueryLog.time("SELECT * FROM workflow WHERE id = ?1", Collections.singletonList(id),
+                            () -> sleep(600));
+        }
+        
+        SlowQuery slowQuery = findSlowQuery("SELECT * FROM workflow WHERE id = ?");
+        
+        // Assert
+        Assert.assertNotNull(slowQuery);
+        Assert.assertEquals(2, slowQuery.getCount());
+        Assert.assertTrue(slowQuery.getMaxMs() >= 600);
+        
+        // end test
+        log.info("test7a complete");
+        
+        // TEST 7b - the plan of the first slow execution is captured, by
+        // running the statement with its value bound
+        log.info("Starting test7b to demonstrate the captured plan...");
+        
+        slowQuery = awaitPlan("SELECT * FROM workflow WHERE id = ?");
+        
+        // Assert
+        Assert.assertNotNull(slowQuery.getPlan());
+        Assert.assertTrue(slowQuery.getPlan().toUpperCase().contains("WORKFLOW"));
+        Assert.assertTrue(slowQuery.getPlan().contains("scanCount"));
+        
+        // end test
+        log.info("Plan: {}", slowQuery.getPlan());
+        log.info("test7b complete");
+        
+        // TEST 7c - a slow statement that failed is explained, not run again
+        log.info("Starting test7c to demonstrate the plan of a failed query...");
+        
+        try
+        {
+            this.slowQueryLog.time("SELECT * FROM workflow WHERE yjb_yp_id = ?1", Collections.singletonList(30848L),
+                            () -> {
+                                sleep(600);
+                                
+                                throw new IllegalStateException("Query failed");
+                            });
+        }
+        catch (IllegalStateException e)
+        {
+            log.info("Failed: {}", e.getMessage());
+        }
+        
+        slowQuery = awaitPlan("SELECT * FROM workflow WHERE yjb_yp_id = ?");
+        
+        // Assert
+        Assert.assertNotNull(slowQuery.getPlan());
+        Assert.assertTrue(slowQuery.getPlan().toUpperCase().contains("WORKFLOW"));
+        Assert.assertFalse(slowQuery.getPlan().contains("scanCount"));
+        
+        // end test
+        log.info("Plan: {}", slowQuery.getPlan());
+        log.info("test7c complete");
+    }
+    
+    
+    @Test
+    public void test8_shouldRejectRunawayAdHocQueries()
+    {
+        // TEST 8a - a three way cross join is refused before it runs
+        log.info("Starting test8a to demonstrate ad hoc query validation...");
+        
+        for (String strQuery : new String[] {
+                        "SELECT a.id FROM workflow a, workflow b, workflow c",
+                        "SELECT * FROM workflow WHERE id = 1; DELETE FROM workflow",
+                        "SELECT * FROM workflow WHERE 1 = 1",
+                        "SELECT * FROM workflow WHERE id IN (SELECT id FROM workflow)" })
+        {
+            try
+            {
+                this.workflowRepoService.fullWorkflowQuery(strQuery);
+                
+                Assert.fail("Query admitted: " + strQuery);
+            }
+            catch (IllegalArgumentException e)
+            {
+                log.info("Rejected: {}", e.getMessage());
+            }
+        }
+        
+        // end test
+        log.info("test8a complete");
+        
+        // TEST 8b - a valid query runs with its literals bound
+        log.info("Starting test8b to demonstrate a compiled ad hoc query...");
+        
+        List<WorkflowEntity> lstWorkflow = this.workflowRepoService.fullWorkflowQuery(
+                        "SELECT * FROM workflow w WHERE w.yjb_yp_id IN (30848, 32524, 28117)"
+                                        + " AND NOT (workflow_state = 'it''s' OR task_status IS NULL)");
+        
+        // Equivalent filter - a null workflow_state fails the NOT as well.
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setYjbYpIds(Arrays.asList(30848L, 32524L, 28117L));
+        filter.setNotNullFields(Arrays.asList("workflowState", "taskStatus"));
+        
+        List<WorkflowEntity> lstExpected = this.workflowRepoService.findWorkflowByFilter(filter);
+        
+        // Assert
+        Assert.assertFalse(lstExpected.isEmpty());
+        Assert.assertEquals(lstExpected.size(), lstWorkflow.size());
+        
+        // end test
+        log.info("Workflow {} found.", lstWorkflow.size());
+        log.info("test8b complete");
+    }
+    
+    
+    @Test
+    public void test9_shouldServeRepeatReadsFromTheQueryCache()
+    {
+        // TEST 9 - a repeated finder is answered from the query cache, and
+        // its records from the second level cache
+        log.info("Starting test9 to demonstrate the second level and query caches...");
+        
+        Statistics statistics = this.sessionFactory.getStatistics();
+        
+        List<WorkflowEntity> lstFirst = this.workflowRepoService.findWorkflowsByState(CANCELLED);
+        
+        long queryHits = statistics.getQueryCacheHitCount();
+        long entityHits = statistics.getSecondLevelCacheHitCount();
+        
+        List<WorkflowEntity> lstSecond = this.workflowRepoService.findWorkflowsByState(CANCELLED);
+        
+        // Assert
+        Assert.assertEquals(lstFirst.size(), lstSecond.size());
+        Assert.assertTrue(statistics.getQueryCacheHitCount() > queryHits);
+        Assert.assertTrue(lstSecond.isEmpty() || (statistics.getSecondLevelCacheHitCount() > entityHits));
+        
+        // end test
+        log.info("Query cache hits {}, second level cache hits {}", statistics.getQueryCacheHitCount(),
+                        statistics.getSecondLevelCacheHitCount());
+        log.info("test9 complete");
+    }
+    
+    
+    @Test
+    public void test10_shouldProjectSelectedFields() throws Exception
+    {
+        // TEST 10 - only the selected fields are read and returned
+        log.info("Starting test10 to demonstrate sparse field sets...");
+        
+        WorkflowFilter filter = new WorkflowFilter();
+        filter.setWorkflowStates(Arrays.asList(ADMITTED));
+        
+        List<WorkflowProjection> lstProjection = this.workflowRepoService.findWorkflowFields(filter, 
+                        Arrays.asList("id", "yjbYp", "workflowState"), null, null, null);
+        
+        // Assert - the same records as the entity query, with three fields.
+        Assert.assertEquals(this.workflowRepoService.findWorkflowsByState(ADMITTED).size(), lstProjection.size());
+        
+        for (WorkflowProjection projection : lstProjection)
+        {
+            Assert.assertEquals(ADMITTED, projection.get("workflowState"));
+        }
+        
+        if (!lstProjection.isEmpty())
+        {
+            JsonNode json = this.objectMapper.valueToTree(lstProjection.get(0));
+            
+            Assert.assertEquals(3, json.size());
+            Assert.assertTrue(json.has("yjbYp"));
+            Assert.assertFalse(json.has("metadata"));
+        }
+        
+        // Assert - a field selected twice is returned once.
+        List<WorkflowProjection> lstDuplicate = this.workflowRepoService.findWorkflowFields(filter,
+                        Arrays.asList("id", "workflowState", "id"), null, 0, 1);
+        
+        if (!lstDuplicate.isEmpty())
+        {
+            Assert.assertEquals(Arrays.asList("id", "workflowState"), lstDuplicate.get(0).getFields());
+            
+            JsonNode json = this.objectMapper.valueToTree(lstDuplicate.get(0));
+            
+            Assert.assertEquals(2, json.size());
+            Assert.assertEquals(ADMITTED, json.get("workflowState").asText());
+            Assert.assertEquals(lstProjection.get(0).get("id"), lstDuplicate.get(0).get("id"));
+        }
+        
+        // Assert - unknown fields are rejected.
+        try
+        {
+            this.workflowRepoService.findWorkflowFields(null, Arrays.asList("id", "noSuchField"), null, null, null);
+            
+            Assert.fail("Unknown field accepted");
+        }
+        catch (IllegalArgumentException e)
+        {
+            log.info("Rejected: {}", e.getMessage());
+        }
+        
+        // end test
+        log.info("Workflow {} projected.", lstProjection.size());
+        log.info("test10 complete");
+    }
+    
+    
+    @Test
+    public void test11_shouldKeepTheEntityCachesCoherent()
+    {
+        // TEST 11 - the read through cache and the second level cache both
+        // see single statement upserts and bulk deletes
+        log.info("Starting test11 to demonstrate entity cache coherence...");
+        
+        Cache cache = this.sessionFactory.getCache();
+        
+        WorkflowEntity original = this.workflowRepoService.findAll().get(1);
+        Long id = original.getId();
+        Long yjbYpId = original.getYjbYp();
+        
+        List<WorkflowEntity> lstGroup = this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId);
+        
+        try
+        {
+            // Warm both caches - by id, and through a finder.
+            this.workflowRepoService.findWorkflowById(id);
+            this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId);
+            
+            Assert.assertTrue(cache.containsEntity(WorkflowEntity.class, id));
+            
+            // Upsert - a native MERGE.
+            WorkflowEntity changed = new WorkflowEntity(original);
+            changed.setMetadata("coherence");
+            
+            this.workflowRepoService.upsertWorkflow(changed);
+            
+            // Assert - both read paths see the new row.
+            Assert.assertEquals("coherence", this.workflowRepoService.findWorkflowById(id).getMetadata());
+            Assert.assertTrue(this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId).stream()
+                            .anyMatch(w -> id.equals(w.getId()) && "coherence".equals(w.getMetadata())));
+            
+            // Bulk delete by id - a JPQL DELETE.
+            this.workflowRepoService.deleteWorkflowsById(Collections.singletonList(id));
+            
+            // Assert - neither read path returns the row.
+            Assert.assertNull(this.workflowRepoService.findWorkflowById(id));
+            Assert.assertFalse(cache.containsEntity(WorkflowEntity.class, id));
+            Assert.assertTrue(this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId).stream()
+                            .noneMatch(w -> id.equals(w.getId())));
+            
+            restore(lstGroup);
+            
+            // Bulk delete by filter - every record of the young person.
+            lstGroup.forEach(w -> this.workflowRepoService.findWorkflowById(w.getId()));
+            
+            WorkflowFilter filter = new WorkflowFilter();
+            filter.setYjbYpIds(Arrays.asList(yjbYpId));
+            
+            Assert.assertEquals(lstGroup.size(), this.workflowRepoService.deleteWorkflowsByFilter(filter));
+            
+            // Assert - neither read path returns the rows.
+            Assert.assertTrue(lstGroup.stream().allMatch(w -> this.workflowRepoService.findWorkflowById(w.getId()) == null));
+            Assert.assertTrue(this.workflowRepoService.findWorkflowsByYjbYp(yjbYpId).isEmpty());
+        }
+        finally
+        {
+            restore(lstGroup);
+        }
+        
+        // end test
+        log.info("test11 complete");
+    }
+    
+    
+    /**
+     * Put back the records a test has changed or deleted.
+     */
+    @Test
+    public void test12_shouldDeleteAllInBatches()
+    {
+        // TEST 12 - every record is deleted, one batch of ids at a time
+        log.info("Starting test12 to demonstrate deleting every record...");
+        
+        List<WorkflowEntity> lstWorkflow = this.workflowRepoService.findAll();
+        
+        try
+        {
+            int deleted = this.workflowRepoService.deleteWorkflowAll();
+            
+            // Assert
+            Assert.assertEquals(lstWorkflow.size(), deleted);
+            Assert.assertTrue(this.workflowRepoService.findAll().isEmpty());
+            Assert.assertNull(this.workflowRepoService.findWorkflowById(lstWorkflow.get(0).getId()));
+            Assert.assertEquals(0, this.workflowRepoService.deleteWorkflowAll());
+        }
+        finally
+        {
+            restore(lstWorkflow);
+        }
+        
+        // Assert - restored for the other tests.
+        Assert.assertEquals(lstWorkflow.size(), this.workflowRepoService.findAll().size());
+        
+        // end test
+        log.info("test12 complete");
+    }
+    
+    
+    @Test
+    public void test13_shouldReportBulkUpdatesInSubmissionOrder()
+    {
+        // TEST 13 - valid, missing and invalid records, reported in order
+        log.info("Starting test13 to demonstrate bulk update outcomes...");
+        
+        List<WorkflowEntity> lstExisting = this.workflowRepoService.findAll(0, 2, "id");
+        
+        WorkflowEntity missing = new WorkflowEntity(lstExisting.get(0));
+        missing.setId(1999999998L);
+        
+        WorkflowEntity noId = new WorkflowEntity(lstExisting.get(0));
+        noId.setId(null);
+        
+        List<WorkflowWriteResult> lstResult = this.workflowRepoService.updateWorkflows(Arrays.asList(
+                        new WorkflowEntity(lstExisting.get(0)), noId, missing, 
+                        new WorkflowEntity(lstExisting.get(1)), null));
+        
+        // Assert
+        Assert.assertEquals(5, lstResult.size());
+        Assert.assertEquals(Arrays.asList(WorkflowWriteStatus.UPDATED, WorkflowWriteStatus.INVALID,
+                        WorkflowWriteStatus.NOT_FOUND, WorkflowWriteStatus.UPDATED, WorkflowWriteStatus.INVALID),
+                        lstResult.stream().map(WorkflowWriteResult::getStatus).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(lstExisting.get(0).getId(), null, 1999999998L, lstExisting.get(1).getId(), null),
+                        lstResult.stream().map(WorkflowWriteResult::getId).collect(Collectors.toList()));
+        
+        for (int i = 0; i < lstResult.size(); i++)
+        {
+            Assert.assertEquals(i, lstResult.get(i).getIndex());
+        }
+        
+        // end test
+        log.info("test13 complete");
+    }
+    
+    
+    @Test
+    public void test14_shouldReportRowCountsOfSingleStatementWrites()
+    {
+        // TEST 14 - the repo writes report affected rows; only duplicate ids are swallowed
+        log.info("Starting test14 to demonstrate single statement writes...");
+        
+        WorkflowEntity existing = this.workflowRepoService.findAll(0, 1, "id").get(0);
+        
+        WorkflowEntity workflowEntity = new WorkflowEntity(existing);
+        workflowEntity.setId(1999999996L);
+        
+        WorkflowEntity merged = new WorkflowEntity(existing);
+        merged.setId(1999999997L);
+        
+        try
+        {
+            // TEST 14a - insert if absent inserts once, at version 0
+            Assert.assertEquals(1, this.workflowRepo.insertIfAbsent(workflowEntity));
+            Assert.assertEquals(0, this.workflowRepo.insertIfAbsent(workflowEntity));
+            Assert.assertEquals(Long.valueOf(0L), this.workflowRepoService.findWorkflowVersion(1999999996L));
+            
+            // A duplicate id is a failed create, not an error.
+            Assert.assertNull(this.workflowRepoService.createWorkflow(new WorkflowEntity(workflowEntity)));
+            
+            // TEST 14b - a NOT NULL violation surfaces from create
+            WorkflowEntity noYjbYp = new WorkflowEntity(workflowEntity);
+            noYjbYp.setId(1999999995L);
+            noYjbYp.setYjbYp(null);
+            
+            try
+            {
+                this.workflowRepoService.createWorkflow(noYjbYp);
+                
+                Assert.fail("Expected a NOT NULL violation");
+            }
+            catch (DataIntegrityViolationException e)
+            {
+                // Expected
+            }
+            
+            Assert.assertNull(this.workflowRepoService.findWorkflowVersion(1999999995L));
+            
+            // TEST 14c - update by id updates an existing record and bumps its version
+            workflowEntity.setWorkflowState(CANCELLED);
+            
+            Assert.assertEquals(1, this.workflowRepo.updateById(workflowEntity));
+            Assert.assertEquals(Long.valueOf(1L), this.workflowRepoService.findWorkflowVersion(1999999996L));
+            
+            WorkflowEntity missing = new WorkflowEntity(workflowEntity);
+            missing.setId(1999999994L);
+            
+            Assert.assertEquals(0, this.workflowRepo.updateById(missing));
+            
+            // TEST 14d - upsert inserts at version 0, then updates to the next version
+            Assert.assertEquals(1, this.workflowRepo.upsert(merged));
+            Assert.assertEquals(Long.valueOf(0L), this.workflowRepoService.findWorkflowVersion(1999999997L));
+            
+            merged.setWorkflowState(ADMITTED);
+            
+            Assert.assertEquals(1, this.workflowRepo.upsert(merged));
+            Assert.assertEquals(Long.valueOf(1L), this.workflowRepoService.findWorkflowVersion(1999999997L));
+            Assert.assertEquals(ADMITTED, this.workflowRepoService.findWorkflowById(1999999997L).getWorkflowState());
+            
+            // TEST 14e - delete by id deletes once
+            Assert.assertEquals(1, this.workflowRepo.deleteRowById(1999999996L));
+            Assert.assertEquals(0, this.workflowRepo.deleteRowById(1999999996L));
+            Assert.assertNull(this.workflowRepoService.findWorkflowVersion(1999999996L));
+        }
+        finally
+        {
+            this.workflowRepoService.deleteWorkflowsById(Arrays.asList(1999999995L, 1999999996L, 1999999997L));
+        }
+        
+        // end test
+        log.info("test14 complete");
+    }
+    
+    
+    @Test
+    public void test15_shouldServeCopiesFromTheEntityCache() throws Exception
+    {
+        // TEST 15 - the read through cache by id
+        log.info("Starting test15 to demonstrate the entity cache...");
+        
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.transactionManager);
+        
+        WorkflowEntity original = this.workflowRepoService.findAll(0, 3, "id").get(2);
+        Long id = original.getId();
+        
+        WorkflowEntity created = new WorkflowEntity(original);
+        created.setId(1999999993L);
+        
+        try
+        {
+            // TEST 15a - no id, no record
+            Assert.assertNull(this.workflowRepoService.findWorkflowById(null));
+            
+            // TEST 15b - repeat reads are hits, each a private copy
+            WorkflowEntity first = this.workflowRepoService.findWorkflowById(id);
+            
+            double hits = cacheGets("hit");
+            
+            first.setMetadata("changed by the caller");
+            
+            WorkflowEntity second = this.workflowRepoService.findWorkflowById(id);
+            
+            // Assert
+            Assert.assertEquals(hits + 1, cacheGets("hit"), 0);
+            Assert.assertNotSame(first, second);
+            Assert.assertEquals(original.getMetadata(), second.getMetadata());
+            
+            // TEST 15c - a reader during an update cannot re-cache the old row
+            transactionTemplate.execute(status -> {
+                
+                WorkflowEntity changed = new WorkflowEntity(original);
+                changed.setMetadata("changed in a transaction");
+                
+                this.workflowRepoService.updateWorkflow(changed);
+                
+                // Assert - another thread still reads, and caches, the committed row.
+                Assert.assertEquals(original.getMetadata(), CompletableFuture
+                                .supplyAsync(() -> this.workflowRepoService.findWorkflowById(id).getMetadata()).join());
+                
+                return null;
+            });
+            
+            // Assert - evicted again from both caches on commit.
+            Assert.assertEquals("changed in a transaction", this.workflowRepoService.findWorkflowById(id).getMetadata());
+            
+            // TEST 15d - a created record is cached on commit, and not on roll back
+            transactionTemplate.execute(status -> {
+                
+                this.workflowRepoService.createWorkflow(new WorkflowEntity(created));
+                
+                status.setRollbackOnly();
+                
+                return null;
+            });
+            
+            Assert.assertNull(this.workflowRepoService.findWorkflowById(1999999993L));
+            
+            transactionTemplate.execute(status -> this.workflowRepoService.createWorkflow(new WorkflowEntity(created)));
+            
+            double misses = cacheGets("miss");
+            
+            // Assert - served from the cache, with the version the insert wrote.
+            Assert.assertEquals(Long.valueOf(0L), this.workflowRepoService.findWorkflowById(1999999993L).getVersion());
+            Assert.assertEquals(misses, cacheGets("miss"), 0);
+            
+            // TEST 15e - a deleted record is evicted
+            Assert.assertTrue(this.workflowRepoService.deleteWorkflowById(1999999993L));
+            Assert.assertNull(this.workflowRepoService.findWorkflowById(1999999993L));
+        }
+        finally
+        {
+            this.workflowRepoService.deleteWorkflowById(1999999993L);
+            
+            restore(Collections.singletonList(original));
+        }
+        
+        // end test
+        log.info("test15 complete");
+    }
+    
+    
+    @Test
+    public void test16_shouldKeepTheCountsInMemory() throws Exception
+    {
+        // TEST 16 - counts kept by deltas, and reconciled when stale or due
+        log.info("Starting test16 to demonstrate the in-memory counts...");
+        
+        Object workflowRepoServiceImpl = AopTestUtils.getUltimateTargetObject(this.workflowRepoService);
+        Object workflowCounters = ReflectionTestUtils.getField(workflowRepoServiceImpl, "workflowCounters");
+        
+        WorkflowEntity workflowEntity = new WorkflowEntity(this.workflowRepoService.findAll(0, 1, "id").get(0));
+        workflowEntity.setId(1999999992L);
+        workflowEntity.setWorkflowState("COUNTED");
+        
+        WorkflowEntity drift = new WorkflowEntity(workflowEntity);
+        drift.setId(1999999991L);
+        drift.setWorkflowState("DRIFTED");
+        
+        try
+        {
+            WorkflowCounts before = awaitReconciled(0);
+            
+            // TEST 16a - a create is counted without reconciling
+            this.workflowRepoService.createWorkflow(new WorkflowEntity(workflowEntity));
+            
+            WorkflowCounts counts = this.workflowRepoService.countWorkflows();
+            
+            // Assert
+            Assert.assertFalse(counts.isStale());
+            Assert.assertEquals(before.getTotal() + 1, counts.getTotal());
+            Assert.assertEquals(Long.valueOf(1L), counts.getByWorkflowState().get("COUNTED"));
+            Assert.assertEquals(before.getReconciledAt(), counts.getReconciledAt());
+            
+            // TEST 16b - an update of a cached record moves its counts
+            this.workflowRepoService.findWorkflowById(1999999992L);
+            
+            workflowEntity.setWorkflowState("RECOUNTED");
+            
+            this.workflowRepoService.updateWorkflow(new WorkflowEntity(workflowEntity));
+            
+            counts = this.workflowRepoService.countWorkflows();
+            
+            // Assert
+            Assert.assertFalse(counts.isStale());
+            Assert.assertEquals(before.getTotal() + 1, counts.getTotal());
+            Assert.assertNull(counts.getByWorkflowState().get("COUNTED"));
+            Assert.assertEquals(Long.valueOf(1L), counts.getByWorkflowState().get("RECOUNTED"));
+            
+            // TEST 16c - a delete of a cached record removes its counts
+            this.workflowRepoService.findWorkflowById(1999999992L);
+            
+            Assert.assertTrue(this.workflowRepoService.deleteWorkflowById(1999999992L));
+            
+            counts = this.workflowRepoService.countWorkflows();
+            
+            // Assert
+            Assert.assertFalse(counts.isStale());
+            Assert.assertEquals(before.getTotal(), counts.getTotal());
+            Assert.assertNull(counts.getByWorkflowState().get("RECOUNTED"));
+            Assert.assertEquals(before.getByWorkflowState(), counts.getByWorkflowState());
+            
+            // TEST 16d - a write of unknown effect marks the counts stale,
+            // and they are reconciled at the next check
+            this.workflowRepoService.upsertWorkflow(new WorkflowEntity(workflowEntity));
+            
+            Assert.assertTrue(this.workflowRepoService.countWorkflows().isStale());
+            
+            counts = awaitReconciled(counts.getReconciledAt().getTime());
+            
+            // Assert
+            Assert.assertEquals(before.getTotal() + 1, counts.getTotal());
+            Assert.assertEquals(Long.valueOf(1L), counts.getByWorkflowState().get("RECOUNTED"));
+            
+            // TEST 16e - a write outside the service is reconciled once the
+            // reconcile interval passes
+            Assert.assertEquals(1, this.workflowRepo.insertIfAbsent(drift));
+            
+            ReflectionTestUtils.setField(workflowCounters, "reconcileIntervalMs", 0L);
+            
+            counts = awaitReconciled(counts.getReconciledAt().getTime());
+            
+            // Assert
+            Assert.assertEquals(before.getTotal() + 2, counts.getTotal());
+            Assert.assertEquals(Long.valueOf(1L), counts.getByWorkflowState().get("DRIFTED"));
+            Assert.assertEquals(this.workflowRepo.count(), counts.getTotal());
+        }
+        finally
+        {
+            ReflectionTestUtils.setField(workflowCounters, "reconcileIntervalMs", 300000L);
+            
+            this.workflowRepoService.deleteWorkflowsById(Arrays.asList(1999999991L, 1999999992L));
+        }
+        
+        // end test
+        log.info("test16 complete");
+    }
+    
+    
+    @Test
+    public void test17_shouldQueueExpensiveQueriesWithoutAConnection() throws Exception
+    {
+        // TEST 17 - an expensive ad hoc query waits for a slot before it
+        // opens its transaction
+        log.info("Starting test17 to demonstrate queueing without a connection...");
+        
+        Object workflowRepoServiceImpl = AopTestUtils.getUltimateTargetObject(this.workflowRepoService);
+        Object adHocQueryGuard = ReflectionTestUtils.getField(workflowRepoServiceImpl, "adHocQueryGuard");
+        Object heavyCost = ReflectionTestUtils.getField(adHocQueryGuard, "heavyCost");
+        Semaphore heavyPermits = (Semaphore) ReflectionTestUtils.getField(adHocQueryGuard, "heavyPermits");
+        
+        HikariPoolMXBean connectionPool = this.dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean();
+        
+        // Every query is expensive, and every slot is taken.
+        ReflectionTestUtils.setField(adHocQueryGuard, "heavyCost", 0L);
+        
+        int permits = heavyPermits.drainPermits();
+        
+        try
+        {
+            CompletableFuture<List<WorkflowEntity>> query = this.workflowRepoService
+                            .selectWorkflowQueryAsync("WHERE workflow_state = 'IN PROGRESS'");
+            
+            for (int i = 0; (i < 50) && !heavyPermits.hasQueuedThreads(); i++)
+            {
+                Thread.sleep(20);
+            }
+            
+            // Assert - queued, holding no connection. Other work may borrow
+            // one in passing, so look for an idle pool a few times.
+            Assert.assertTrue(heavyPermits.hasQueuedThreads());
+            
+            int activeConnections = connectionPool.getActiveConnections();
+            
+            for (int i = 0; (i < 20) && (activeConnections > 0); i++)
+            {
+                Thread.sleep(20);
+                
+                activeConnections = Math.min(activeConnections, connectionPool.getActiveConnections());
+            }
+            
+            Assert.assertEquals(0, activeConnections);
+            
+            // A slot comes free - the query runs.
+            heavyPermits.release(permits);
+            permits = 0;
+            
+            Assert.assertFalse(query.get(10, TimeUnit.SECONDS).isEmpty());
+        }
+        finally
+        {
+            heavyPermits.release(permits);
+            
+            ReflectionTestUtils.setField(adHocQueryGuard, "heavyCost", heavyCost);
+        }
+        
+        // end test
+        log.info("test17 complete");
+    }
+    
+    
+    private void restore(List<WorkflowEntity> lstWorkflow)
+    {
+        for (WorkflowEntity workflowEntity : lstWorkflow)
+        {
+            this.workflowRepoService.upsertWorkflow(new WorkflowEntity(workflowEntity));
+        }
+    }
+    
+    
+    private double cacheGets(String strResult)
+    {
+        return this.meterRegistry.get("cache.gets").tag("cache", "workflowById").tag("result", strResult)
+                        .functionCounter().count();
+    }
+    
+    
+    /**
+     * Wait, over at most two check intervals, for the counts to be
+     * reconciled after the given time and settled: not stale, and not
+     * reconciled again between two looks, so no reconciliation that could
+     * miss the next writes is still running.
+     */
+    private WorkflowCounts awaitReconciled(long afterMs) throws InterruptedException
+    {
+        WorkflowCounts previous = null;
+        WorkflowCounts counts = this.workflowRepoService.countWorkflows();
+        
+        for (int i = 0; (i < 120) && !isSettled(previous, counts, afterMs); i++)
+        {
+            Thread.sleep(100);
+            
+            previous = counts;
+            counts = this.workflowRepoService.countWorkflows();
+        }
+        
+        Assert.assertTrue(isSettled(previous, counts, afterMs));
+        
+        return counts;
+    }
+    
+    
+    private static boolean isSettled(WorkflowCounts previous, WorkflowCounts counts, long afterMs)
+    {
+        return (previous != null) && !previous.isStale() && !counts.isStale()
+                        && (counts.getReconciledAt() != null) && (counts.getReconciledAt().getTime() > afterMs)
+                        && counts.getReconciledAt().equals(previous.getReconciledAt());
+    }
+    
+    
+    private SlowQuery awaitPlan(String strShape) throws InterruptedException
+    {
+        SlowQuery slowQuery = findSlowQuery(strShape);
+        
+        for (int i = 0; (i < 50) && (slowQuery.getPlan() == null); i++)
+        {
+            Thread.sleep(100);
+            
+            slowQuery = findSlowQuery(strShape);
+        }
+        
+        return slowQuery;
+    }
+    
+    
+    private static Object sleep(long ms)
+    {
+        try
+        {
+            Thread.sleep(ms);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        
+        return null;
+    }
+    
+    
+    private SlowQuery findSlowQuery(String strShape)
+    {
+        return this.slowQueryLog.slowest().stream()
+                        .filter(slowQuery -> slowQuery.getQuery().equals(strShape))
+                        .findFirst()
+                        .orElse(null);
+    }
     
 }
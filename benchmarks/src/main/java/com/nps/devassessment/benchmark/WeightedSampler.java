@@ -0,0 +1,100 @@
+package com.nps.devassessment.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WeightedSampler.java
+ *
+ * Purpose  : Class to draw values at random in proportion to the weights
+ *            observed for them. Values may be null.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+final class WeightedSampler<T>
+{
+    private final List<T> values;
+
+    private final long[]  cumulative;
+
+
+    private WeightedSampler(List<T> values, long[] cumulative)
+    {
+        this.values = values;
+        this.cumulative = cumulative;
+    }
+
+
+    /**
+     * Draw a value.
+     *
+     * @param random - random source of the calling thread.
+     * @return value, with probability proportional to its weight.
+     */
+    T sample(SplittableRandom random)
+    {
+        long point = random.nextLong(this.cumulative[this.cumulative.length - 1]);
+
+        int index = Arrays.binarySearch(this.cumulative, point + 1);
+
+        return this.values.get((index >= 0) ? index : -index - 1);
+    }
+
+
+    int size()
+    {
+        return this.values.size();
+    }
+
+
+    /**
+     * Builder collecting the observed values and their weights.
+     */
+    static final class Builder<T>
+    {
+        private final List<T>    values  = new ArrayList<>();
+
+        private final List<Long> weights = new ArrayList<>();
+
+
+        Builder<T> add(T value, long weight)
+        {
+            if (weight > 0)
+            {
+                this.values.add(value);
+                this.weights.add(weight);
+            }
+
+            return this;
+        }
+
+
+        WeightedSampler<T> build()
+        {
+            if (this.values.isEmpty())
+            {
+                throw new IllegalStateException("No observed values to sample");
+            }
+
+            long[] cumulative = new long[this.weights.size()];
+
+            long total = 0;
+
+            for (int i = 0; i < cumulative.length; i++)
+            {
+                total += this.weights.get(i);
+                cumulative[i] = total;
+            }
+
+            return new WeightedSampler<>(new ArrayList<>(this.values), cumulative);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.nps.devassessment.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.hibernate.Cache;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nps.devassessment.DevAssessmentApplication;
+import com.nps.devassessment.service.WorkflowRepoService;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowContextState.java
+ *
+ * Purpose  : JMH state holding the application context shared by the
+ *            benchmarks of one fork. The embedded H2 database is seeded
+ *            from data.sql as usual and then scaled up with rows drawn from
+ *            the seed's distributions by WorkflowDataGenerator (param
+ *            'rows', in addition to the seed), so lookups and pages run
+ *            against a realistically sized table. The web server is not
+ *            started.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@State(Scope.Benchmark)
+public class WorkflowContextState
+{
+    /**
+     * Synthetic rows added to the seed.
+     */
+    @Param({ "100000" })
+    public int                             rows;
+
+    ConfigurableApplicationContext         context;
+
+    WorkflowRepoService                    workflowRepoService;
+
+    ObjectMapper                           objectMapper;
+
+    JdbcTemplate                           jdbcTemplate;
+
+    DataSource                             dataSource;
+
+    WorkflowProfile                        profile;
+
+    /**
+     * Id span of the table after seeding.
+     */
+    long                                   minId;
+
+    long                                   maxId;
+
+
+    @Setup(Level.Trial)
+    public void setUp()
+    {
+        this.context = new SpringApplicationBuilder(DevAssessmentApplication.class)
+                        .web(WebApplicationType.NONE)
+                        .properties("spring.datasource.url=jdbc:h2:mem:benchmark;QUERY_CACHE_SIZE=64;DB_CLOSE_DELAY=-1",
+                                        "logging.level.root=WARN")
+                        .run();
+
+        this.workflowRepoService = this.context.getBean(WorkflowRepoService.class);
+        this.objectMapper = this.context.getBean(ObjectMapper.class);
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+        this.dataSource = this.context.getBean(DataSource.class);
+
+        this.profile = WorkflowProfile.learn(this.jdbcTemplate);
+
+        insert(this.profile.maxId() + 1, this.rows);
+
+        this.minId = this.jdbcTemplate.queryForObject("SELECT MIN(id) FROM workflow", Long.class);
+        this.maxId = this.jdbcTemplate.queryForObject("SELECT MAX(id) FROM workflow", Long.class);
+    }
+
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        if (this.context != null)
+        {
+            this.context.close();
+        }
+    }
+
+
+    /**
+     * Insert generated rows with consecutive ids. The rows are written
+     * behind Hibernate's back, so its entity and query caches are cleared.
+     *
+     * @param firstId - id of the first row.
+     * @param count - number of rows.
+     */
+    void insert(long firstId, int count)
+    {
+        new WorkflowDataGenerator(this.profile, firstId, count, firstId, Runtime.getRuntime().availableProcessors())
+                        .insert(this.dataSource);
+
+        this.context.getBean(EntityManagerFactory.class).getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+
+    /**
+     * An id in the synthetic range, which is dense.
+     *
+     * @return existing work flow entity id.
+     */
+    long randomSyntheticId()
+    {
+        return ThreadLocalRandom.current().nextLong(this.maxId - this.rows + 1, this.maxId + 1);
+    }
+}
@@ -0,0 +1,407 @@
+package com.nps.devassessment.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.sql.DataSource;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowDataGenerator.java
+ *
+ * Purpose  : Class to generate synthetic workflow rows at scale from the
+ *            distributions of the seed (see WorkflowProfile), either
+ *            straight into a database by batched inserts, or to a CSV
+ *            snapshot in the format read by the application's bulk seed
+ *            loader (workflow.seed.mode=bulk), gzip compressed when the file
+ *            name ends '.gz'.
+ *
+ *            Rows are generated in fixed size chunks in parallel. Each chunk
+ *            has its own random source derived from the seed value, its own
+ *            id range and its own young people, and chunks are written in
+ *            order, so the output for a given seed is the same whatever the
+ *            parallelism.
+ *
+ *            Command line:
+ *
+ *              --rows=N                 rows to generate (default 1,000,000)
+ *              --out=FILE               write a CSV snapshot, or
+ *              --jdbc-url=URL           insert into an existing workflow table
+ *              --user=, --password=     credentials for --jdbc-url
+ *              --first-id=N             first row id (default: after the
+ *                                       seed, or after the target table)
+ *              --parallelism=N          worker threads
+ *              --seed=N                 random seed (default 1)
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+public final class WorkflowDataGenerator
+{
+    /**
+     * Snapshot columns, in the file order of the application seed loader.
+     */
+    static final String COLUMNS = "id,yjb_yp_id,workflow_id,kpf_confirmed,workflow_state,created,modified,"
+                    + "created_by,modified_by,metadata,process,task_id,previous_state,task_status,task_metadata";
+
+    private static final String INSERT_SQL = "INSERT INTO workflow (" + COLUMNS
+                    + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int CHUNK_ROWS = 50_000;
+
+    private static final int BATCH_SIZE = 1000;
+
+    /**
+     * Young person ids of generated rows start here, clear of the seed.
+     */
+    private static final long FIRST_YP_ID = 1_000_000L;
+
+    private final WorkflowProfile profile;
+
+    private final long            firstId;
+
+    private final int             rows;
+
+    private final long            seed;
+
+    private final int             parallelism;
+
+
+    WorkflowDataGenerator(WorkflowProfile profile, long firstId, int rows, long seed, int parallelism)
+    {
+        // The id column is a 32 bit INT.
+        if (firstId + rows - 1 > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("Ids beyond " + Integer.MAX_VALUE + " do not fit the id column");
+        }
+
+        this.profile = profile;
+        this.firstId = firstId;
+        this.rows = rows;
+        this.seed = seed;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+
+    /**
+     * Insert the rows into the workflow table, one connection and one
+     * transaction per chunk.
+     *
+     * @param dataSource - target database, ideally pooled.
+     */
+    void insert(DataSource dataSource)
+    {
+        runChunks(chunk -> {
+
+            try (Connection connection = dataSource.getConnection())
+            {
+                boolean bAutoCommit = connection.getAutoCommit();
+
+                connection.setAutoCommit(false);
+
+                try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL))
+                {
+                    int[] pending = { 0 };
+
+                    generateChunk(chunk, row -> {
+                        try
+                        {
+                            for (int i = 0; i < row.length; i++)
+                            {
+                                statement.setObject(i + 1, row[i]);
+                            }
+
+                            statement.addBatch();
+
+                            if (++pending[0] == BATCH_SIZE)
+                            {
+                                statement.executeBatch();
+                                pending[0] = 0;
+                            }
+                        }
+                        catch (SQLException e)
+                        {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+
+                    if (pending[0] > 0)
+                    {
+                        statement.executeBatch();
+                    }
+
+                    connection.commit();
+                }
+                finally
+                {
+                    connection.setAutoCommit(bAutoCommit);
+                }
+            }
+            catch (SQLException e)
+            {
+                throw new IllegalStateException("Insert of chunk " + chunk + " failed", e);
+            }
+        });
+    }
+
+
+    /**
+     * Write the rows as a CSV snapshot with a header line.
+     *
+     * @param out - file to write, gzip compressed if it ends '.gz'.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeCsv(Path out) throws IOException
+    {
+        try (OutputStream stream = out.toString().endsWith(".gz")
+                        ? new GZIPOutputStream(Files.newOutputStream(out), 1 << 16) : Files.newOutputStream(out);
+             Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 1 << 16))
+        {
+            writer.write(COLUMNS);
+            writer.write('\n');
+
+            int chunks = chunkCount();
+
+            ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+
+            try
+            {
+                // Chunks are rendered in parallel, a bounded window ahead
+                // of the writer, and appended whole in chunk order.
+                Deque<Future<StringBuilder>> pending = new ArrayDeque<>();
+
+                int next = 0;
+
+                for (int chunk = 0; chunk < chunks; chunk++)
+                {
+                    while ((next < chunks) && (pending.size() < 2 * this.parallelism))
+                    {
+                        int rendered = next++;
+
+                        pending.add(pool.submit(() -> renderCsv(rendered)));
+                    }
+
+                    writer.append(await(pending.poll()));
+                }
+            }
+            finally
+            {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+
+    private StringBuilder renderCsv(int chunk)
+    {
+        StringBuilder lines = new StringBuilder(CHUNK_ROWS * 200);
+
+        generateChunk(chunk, row -> appendCsv(lines, row));
+
+        return lines;
+    }
+
+
+    private static <T> T await(Future<T> future)
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException("Generation interrupted", e);
+        }
+        catch (ExecutionException e)
+        {
+            throw new IllegalStateException("Generation failed", e.getCause());
+        }
+    }
+
+
+    private int chunkCount()
+    {
+        return (this.rows + CHUNK_ROWS - 1) / CHUNK_ROWS;
+    }
+
+
+    private void runChunks(Consumer<Integer> task)
+    {
+        int chunks = chunkCount();
+
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+
+        try
+        {
+            await(pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(task::accept)));
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+
+    /**
+     * Generate the rows of one chunk, young person by young person.
+     */
+    private void generateChunk(int chunk, Consumer<Object[]> consumer)
+    {
+        SplittableRandom random = new SplittableRandom(this.seed * 1_000_003L + chunk);
+
+        int from = chunk * CHUNK_ROWS;
+        int to = Math.min(from + CHUNK_ROWS, this.rows);
+
+        // Each chunk owns CHUNK_ROWS young person ids - at least one row each.
+        long yjbYpId = FIRST_YP_ID + (long) chunk * CHUNK_ROWS;
+
+        int row = from;
+
+        while (row < to)
+        {
+            int workflows = Math.min(this.profile.sampleWorkflowsPerYp(random), to - row);
+
+            for (int i = 0; i < workflows; i++, row++)
+            {
+                consumer.accept(this.profile.sampleRow(random, this.firstId + row, yjbYpId));
+            }
+
+            yjbYpId++;
+        }
+    }
+
+
+    private static void appendCsv(StringBuilder lines, Object[] row)
+    {
+        for (int i = 0; i < row.length; i++)
+        {
+            if (i > 0)
+            {
+                lines.append(',');
+            }
+
+            Object value = row[i];
+
+            // An empty unquoted field is NULL.
+            if (value == null)
+            {
+                continue;
+            }
+
+            String text = value.toString();
+
+            if ((text.isEmpty()) || (text.indexOf(',') >= 0) || (text.indexOf('"') >= 0)
+                            || (text.indexOf('\n') >= 0) || (text.indexOf('\r') >= 0))
+            {
+                lines.append('"').append(text.replace("\"", "\"\"")).append('"');
+            }
+            else
+            {
+                lines.append(text);
+            }
+        }
+
+        lines.append('\n');
+    }
+
+
+    /**
+     * Learn the profile from the application seed, loaded into a scratch
+     * in-memory database.
+     *
+     * @return profile of the seed.
+     */
+    static WorkflowProfile learnSeedProfile()
+    {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:workflow_profile;DB_CLOSE_DELAY=-1",
+                        "sa", "");
+
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql"), new ClassPathResource("data.sql"))
+                        .execute(dataSource);
+
+        return WorkflowProfile.learn(new JdbcTemplate(dataSource));
+    }
+
+
+    public static void main(String[] args) throws IOException
+    {
+        Map<String, String> options = new HashMap<>();
+
+        for (String arg : args)
+        {
+            int split = arg.indexOf('=');
+
+            if ((!arg.startsWith("--")) || (split < 0))
+            {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+
+        int rows = Integer.parseInt(options.getOrDefault("rows", "1000000"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "1"));
+        int parallelism = Integer.parseInt(options.getOrDefault("parallelism",
+                        String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+        WorkflowProfile profile = learnSeedProfile();
+
+        long start = System.nanoTime();
+
+        if (options.containsKey("jdbc-url"))
+        {
+            DriverManagerDataSource targetSource = new DriverManagerDataSource(options.get("jdbc-url"),
+                            options.getOrDefault("user", "sa"), options.getOrDefault("password", ""));
+
+            Long maxId = new JdbcTemplate(targetSource).queryForObject("SELECT MAX(id) FROM workflow", Long.class);
+
+            long firstId = Long.parseLong(options.getOrDefault("first-id", String.valueOf((maxId != null) ? maxId + 1 : 1)));
+
+            new WorkflowDataGenerator(profile, firstId, rows, seed, parallelism).insert(targetSource);
+        }
+        else if (options.containsKey("out"))
+        {
+            long firstId = Long.parseLong(options.getOrDefault("first-id", String.valueOf(profile.maxId() + 1)));
+
+            new WorkflowDataGenerator(profile, firstId, rows, seed, parallelism).writeCsv(Paths.get(options.get("out")));
+        }
+        else
+        {
+            throw new IllegalArgumentException("One of --out=FILE or --jdbc-url=URL is required");
+        }
+
+        System.out.println("Generated " + rows + " workflow rows in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+}
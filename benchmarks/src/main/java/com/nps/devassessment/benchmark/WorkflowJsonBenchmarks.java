@@ -0,0 +1,113 @@
+package com.nps.devassessment.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nps.devassessment.controller.SmileMessageConverter;
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowJsonBenchmarks.java
+ *
+ * Purpose  : Throughput of serializing lists of work flow entity records,
+ *            and reading them back, with the mappers of the controller
+ *            responses: the application ObjectMapper for JSON, and that of
+ *            SmileMessageConverter for Smile. The payload size of each
+ *            encoding is printed when the records are read.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowJsonBenchmarks
+{
+
+    @Benchmark
+    public byte[] serializeList(WorkflowContextState state, ListState listState) throws JsonProcessingException
+    {
+        return state.objectMapper.writeValueAsBytes(listState.lstWorkflow);
+    }
+
+
+    @Benchmark
+    public byte[] serializeListSmile(ListState listState) throws JsonProcessingException
+    {
+        return listState.smileMapper.writeValueAsBytes(listState.lstWorkflow);
+    }
+
+
+    @Benchmark
+    public List<WorkflowEntity> deserializeList(WorkflowContextState state, ListState listState) throws IOException
+    {
+        return state.objectMapper.readValue(listState.json, listState.listType);
+    }
+
+
+    @Benchmark
+    public List<WorkflowEntity> deserializeListSmile(ListState listState) throws IOException
+    {
+        return listState.smileMapper.readValue(listState.smile, listState.listType);
+    }
+
+
+    /**
+     * Records to serialize, read once per trial, and their encodings.
+     */
+    @State(Scope.Benchmark)
+    public static class ListState
+    {
+        @Param({ "50", "1000" })
+        public int           size;
+
+        List<WorkflowEntity> lstWorkflow;
+
+        ObjectMapper         smileMapper;
+
+        JavaType             listType;
+
+        byte[]               json;
+
+        byte[]               smile;
+
+
+        @Setup(Level.Trial)
+        public void setUp(WorkflowContextState state) throws JsonProcessingException
+        {
+            this.lstWorkflow = state.workflowRepoService.findAll(0, this.size, "id");
+            this.smileMapper = state.context.getBean(SmileMessageConverter.class).getObjectMapper();
+            this.listType = state.objectMapper.getTypeFactory().constructCollectionType(List.class, WorkflowEntity.class);
+
+            this.json = state.objectMapper.writeValueAsBytes(this.lstWorkflow);
+            this.smile = this.smileMapper.writeValueAsBytes(this.lstWorkflow);
+
+            System.out.printf("%n%d records: JSON %d bytes, Smile %d bytes (%.0f%%)%n", this.lstWorkflow.size(),
+                            this.json.length, this.smile.length, 100.0 * this.smile.length / this.json.length);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.nps.devassessment.benchmark;
+
+import java.sql.Timestamp;
+import java.util.SplittableRandom;
+import java.util.UUID;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowProfile.java
+ *
+ * Purpose  : Class holding the value distributions of the workflow table,
+ *            learned from the seeded rows, and drawing synthetic rows from
+ *            them.
+ *
+ *            workflow_state, process, previous_state, task_status and
+ *            whether the row has timestamps are learned as one joint
+ *            distribution, so only combinations seen in the seed are
+ *            generated, in their seed proportions. created_by,
+ *            modified_by, metadata and task_metadata are learned per column.
+ *            The yjb_yp_id skew is learned as the distribution of the number
+ *            of workflows per young person. Timestamps are spread over the
+ *            seed's created range.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+final class WorkflowProfile
+{
+    /**
+     * Most frequent values kept for a free text column.
+     */
+    private static final int MAX_COLUMN_VALUES = 1000;
+
+    private final WeightedSampler<String[]> states;
+
+    private final WeightedSampler<String>   createdBy;
+
+    private final WeightedSampler<String>   modifiedBy;
+
+    private final WeightedSampler<String>   metadata;
+
+    private final WeightedSampler<String>   taskMetadata;
+
+    private final WeightedSampler<Integer>  workflowsPerYp;
+
+    private final double                    kpfConfirmedRatio;
+
+    private final double                    taskIdRatio;
+
+    private final long                      createdFrom;
+
+    private final long                      createdSpan;
+
+    private final long                      maxModifiedGap;
+
+    private final long                      maxId;
+
+
+    private WorkflowProfile(JdbcTemplate jdbcTemplate)
+    {
+        WeightedSampler.Builder<String[]> stateBuilder = new WeightedSampler.Builder<>();
+
+        jdbcTemplate.query("SELECT workflow_state, process, previous_state, task_status, created IS NOT NULL, COUNT(*)"
+                        + " FROM workflow GROUP BY workflow_state, process, previous_state, task_status, created IS NOT NULL"
+                        + " ORDER BY 1, 2, 3, 4, 5",
+                        resultSet -> {
+                            stateBuilder.add(new String[] { resultSet.getString(1), resultSet.getString(2),
+                                            resultSet.getString(3), resultSet.getString(4),
+                                            resultSet.getBoolean(5) ? "1" : null }, resultSet.getLong(6));
+                        });
+
+        this.states = stateBuilder.build();
+        this.createdBy = learnColumn(jdbcTemplate, "created_by");
+        this.modifiedBy = learnColumn(jdbcTemplate, "modified_by");
+        this.metadata = learnColumn(jdbcTemplate, "metadata");
+        this.taskMetadata = learnColumn(jdbcTemplate, "task_metadata");
+
+        WeightedSampler.Builder<Integer> perYpBuilder = new WeightedSampler.Builder<>();
+
+        jdbcTemplate.query("SELECT c, COUNT(*) FROM (SELECT COUNT(*) c FROM workflow GROUP BY yjb_yp_id) GROUP BY c ORDER BY c",
+                        resultSet -> {
+                            perYpBuilder.add(resultSet.getInt(1), resultSet.getLong(2));
+                        });
+
+        this.workflowsPerYp = perYpBuilder.build();
+
+        Object[] summary = jdbcTemplate.queryForObject("SELECT COUNT(*),"
+                        + " SUM(CASE WHEN kpf_confirmed THEN 1 ELSE 0 END), COUNT(task_id),"
+                        + " MIN(created), MAX(created), MAX(DATEDIFF('SECOND', created, modified)), MAX(id)"
+                        + " FROM workflow",
+                        (resultSet, rowNum) -> new Object[] { resultSet.getLong(1), resultSet.getLong(2),
+                                        resultSet.getLong(3), resultSet.getTimestamp(4),
+                                        resultSet.getTimestamp(5), resultSet.getLong(6), resultSet.getLong(7) });
+
+        double total = Math.max(1, (Long) summary[0]);
+
+        this.kpfConfirmedRatio = (Long) summary[1] / total;
+        this.taskIdRatio = (Long) summary[2] / total;
+
+        Timestamp minCreated = (Timestamp) summary[3];
+        Timestamp maxCreated = (Timestamp) summary[4];
+
+        this.createdFrom = (minCreated != null) ? minCreated.getTime() : System.currentTimeMillis();
+        this.createdSpan = (minCreated != null) ? Math.max(1, maxCreated.getTime() - minCreated.getTime()) : 1;
+        this.maxModifiedGap = Math.max(0, (Long) summary[5]) * 1000;
+        this.maxId = (Long) summary[6];
+    }
+
+
+    /**
+     * Learn the distributions of the rows in the workflow table.
+     *
+     * @param jdbcTemplate - template on a database holding the seed.
+     * @return learned profile.
+     */
+    static WorkflowProfile learn(JdbcTemplate jdbcTemplate)
+    {
+        return new WorkflowProfile(jdbcTemplate);
+    }
+
+
+    private static WeightedSampler<String> learnColumn(JdbcTemplate jdbcTemplate, String column)
+    {
+        WeightedSampler.Builder<String> builder = new WeightedSampler.Builder<>();
+
+        jdbcTemplate.query("SELECT " + column + ", COUNT(*) FROM workflow GROUP BY " + column
+                        + " ORDER BY COUNT(*) DESC, " + column + " LIMIT " + MAX_COLUMN_VALUES,
+                        resultSet -> {
+                            builder.add(resultSet.getString(1), resultSet.getLong(2));
+                        });
+
+        return builder.build();
+    }
+
+
+    /**
+     * Highest id of the learned rows.
+     *
+     * @return maximum id.
+     */
+    long maxId()
+    {
+        return this.maxId;
+    }
+
+
+    /**
+     * Number of workflows of the next young person.
+     *
+     * @param random - random source of the calling thread.
+     * @return workflow count, at least 1.
+     */
+    int sampleWorkflowsPerYp(SplittableRandom random)
+    {
+        return Math.max(1, this.workflowsPerYp.sample(random));
+    }
+
+
+    /**
+     * Draw the column values of one row, in WorkflowSeedLoader column
+     * order.
+     *
+     * @param random - random source of the calling thread.
+     * @param id - row id.
+     * @param yjbYpId - young person id.
+     * @return row values.
+     */
+    Object[] sampleRow(SplittableRandom random, long id, long yjbYpId)
+    {
+        String[] state = this.states.sample(random);
+
+        Timestamp created = null;
+        Timestamp modified = null;
+
+        if (state[4] != null)
+        {
+            long createdAt = this.createdFrom + random.nextLong(this.createdSpan);
+
+            created = new Timestamp(createdAt);
+            modified = new Timestamp(createdAt + ((this.maxModifiedGap > 0) ? random.nextLong(this.maxModifiedGap) : 0));
+        }
+
+        String taskId = (random.nextDouble() < this.taskIdRatio)
+                        ? new UUID(random.nextLong(), random.nextLong()).toString() : null;
+
+        return new Object[] {
+            id,
+            yjbYpId,
+            id,
+            random.nextDouble() < this.kpfConfirmedRatio,
+            state[0],
+            created,
+            modified,
+            this.createdBy.sample(random),
+            this.modifiedBy.sample(random),
+            this.metadata.sample(random),
+            state[1],
+            taskId,
+            state[2],
+            state[3],
+            this.taskMetadata.sample(random)
+        };
+    }
+}
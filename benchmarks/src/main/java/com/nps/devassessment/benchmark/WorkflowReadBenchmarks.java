@@ -0,0 +1,79 @@
+package com.nps.devassessment.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowReadBenchmarks.java
+ *
+ * Purpose  : Throughput of the WorkflowRepoService read paths.
+ *
+ *            findWorkflowById draws ids uniformly from the synthetic rows,
+ *            so with the default sizes most lookups miss the entity cache.
+ *            selectWorkflowQuery is measured without a WHERE clause - the
+ *            full table read - and with a WHERE clause on the indexed
+ *            task_status column, which is compiled, explained by the ad hoc
+ *            query guard and run as an index lookup. 'PLACED' is about one
+ *            row in a hundred of the seed, well under the guard's row cap.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowReadBenchmarks
+{
+    private static final int    PAGE_SIZE    = 50;
+
+    private static final String WHERE_PLACED = "WHERE task_status = 'PLACED'";
+
+
+    @Benchmark
+    public WorkflowEntity findWorkflowById(WorkflowContextState state)
+    {
+        return state.workflowRepoService.findWorkflowById(state.randomSyntheticId());
+    }
+
+
+    @Benchmark
+    public List<WorkflowEntity> findAllPage(WorkflowContextState state)
+    {
+        int pageNo = ThreadLocalRandom.current().nextInt(Math.max(1, state.rows / PAGE_SIZE));
+
+        return state.workflowRepoService.findAll(pageNo, PAGE_SIZE, "id");
+    }
+
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MINUTES)
+    public List<WorkflowEntity> selectWorkflowQuery(WorkflowContextState state)
+    {
+        return state.workflowRepoService.selectWorkflowQuery("");
+    }
+
+
+    @Benchmark
+    public List<WorkflowEntity> selectWorkflowQueryWhere(WorkflowContextState state)
+    {
+        return state.workflowRepoService.selectWorkflowQuery(WHERE_PLACED);
+    }
+}
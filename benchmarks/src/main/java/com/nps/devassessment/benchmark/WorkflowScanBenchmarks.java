@@ -0,0 +1,128 @@
+package com.nps.devassessment.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.CacheMode;
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowScanBenchmarks.java
+ *
+ * Purpose  : Time and allocation of reading the full table three ways:
+ *
+ *              managedScan   - managed entities in a read-write
+ *                              transaction: a snapshot of every row is
+ *                              kept and dirty checked at commit.
+ *              readOnlyScan  - the read-only transaction of the query
+ *                              methods: read-only entities, no snapshots,
+ *                              no flush.
+ *              statelessScan - streamAll through a stateless session.
+ *
+ *            The second level cache is bypassed, so every variant reads
+ *            the table. The GC profiler's gc.alloc.rate.norm gives the heap
+ *            allocated per scan.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WorkflowScanBenchmarks
+{
+    private static final String SCAN = "SELECT w FROM WorkflowEntity w";
+
+
+    @State(Scope.Benchmark)
+    public static class ScanState
+    {
+        EntityManagerFactory entityManagerFactory;
+
+
+        @Setup(Level.Trial)
+        public void setUp(WorkflowContextState state)
+        {
+            this.entityManagerFactory = state.context.getBean(EntityManagerFactory.class);
+        }
+    }
+
+
+    @Benchmark
+    public int managedScan(ScanState state)
+    {
+        return scan(state, false);
+    }
+
+
+    @Benchmark
+    public int readOnlyScan(ScanState state)
+    {
+        return scan(state, true);
+    }
+
+
+    @Benchmark
+    public long statelessScan(WorkflowContextState state, Blackhole blackhole)
+    {
+        return state.workflowRepoService.streamAll(blackhole::consume);
+    }
+
+
+    private static int scan(ScanState state, boolean bReadOnly)
+    {
+        EntityManager em = state.entityManagerFactory.createEntityManager();
+
+        try
+        {
+            if (bReadOnly)
+            {
+                Session session = em.unwrap(Session.class);
+                session.setDefaultReadOnly(true);
+                session.setHibernateFlushMode(FlushMode.MANUAL);
+            }
+
+            em.getTransaction().begin();
+
+            int rows = em.createQuery(SCAN, WorkflowEntity.class)
+                            .setHint(QueryHints.HINT_CACHE_MODE, CacheMode.IGNORE)
+                            .setHint(QueryHints.HINT_READONLY, bReadOnly)
+                            .getResultList()
+                            .size();
+
+            // The managed scan dirty checks every row here.
+            em.getTransaction().commit();
+
+            return rows;
+        }
+        finally
+        {
+            em.close();
+        }
+    }
+}
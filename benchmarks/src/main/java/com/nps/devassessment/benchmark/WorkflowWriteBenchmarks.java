@@ -0,0 +1,174 @@
+package com.nps.devassessment.benchmark;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.nps.devassessment.entity.WorkflowEntity;
+
+/**
+ * Copyright 2021
+ *
+ * File Name:   WorkflowWriteBenchmarks.java
+ *
+ * Purpose  : Throughput of the WorkflowRepoService single record writes
+ *            and bulk deletes.
+ *
+ *            Created records take ids well above the seeded table. Each
+ *            bulk delete removes a chunk of freshly inserted rows, refilled
+ *            in the same id range of its thread between the synthetic rows
+ *            and the created records; the insert is done in the per
+ *            invocation set up and is not measured.
+ *
+ * Version
+ *    1.0   17 Oct 2026 - initial release.
+ *
+ * @author mccormam
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WorkflowWriteBenchmarks
+{
+    private static final int  DELETE_CHUNK = 1000;
+
+    /**
+     * Ids between the synthetic rows and the created records, for the
+     * delete chunks.
+     */
+    private static final long DELETE_SPAN  = 10_000_000L;
+
+
+    @Benchmark
+    public WorkflowEntity createWorkflow(WorkflowContextState state, WriteState writeState)
+    {
+        WorkflowEntity workflowEntity = newWorkflow(writeState.nextId.getAndIncrement());
+
+        return state.workflowRepoService.createWorkflow(workflowEntity);
+    }
+
+
+    @Benchmark
+    public WorkflowEntity updateWorkflow(WorkflowContextState state)
+    {
+        WorkflowEntity workflowEntity = newWorkflow(state.randomSyntheticId());
+
+        return state.workflowRepoService.updateWorkflow(workflowEntity);
+    }
+
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MINUTES)
+    public int deleteWorkflowsById(WorkflowContextState state, DeleteState deleteState)
+    {
+        return state.workflowRepoService.deleteWorkflowsById(deleteState.lstId);
+    }
+
+
+    private static WorkflowEntity newWorkflow(long id)
+    {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+
+        WorkflowEntity workflowEntity = new WorkflowEntity();
+        workflowEntity.setId(id);
+        workflowEntity.setWorkflowId(id);
+        workflowEntity.setYjbYp(10000 + (id % 5000));
+        workflowEntity.setKpfConfirmed(Boolean.TRUE);
+        workflowEntity.setWorkflowState("IN PROGRESS");
+        workflowEntity.setCreated(now);
+        workflowEntity.setModified(now);
+        workflowEntity.setCreatedBy("benchmark.user");
+        workflowEntity.setModifiedBy("benchmark.user");
+        workflowEntity.setProcess("placementProcess");
+        workflowEntity.setPreviousState("PLACEMENT_PENDING");
+        workflowEntity.setTaskStatus("ADMITTED");
+
+        return workflowEntity;
+    }
+
+
+    /**
+     * Ids for created records, clear of the seeded and synthetic rows.
+     */
+    @State(Scope.Benchmark)
+    public static class WriteState
+    {
+        final AtomicLong nextId = new AtomicLong();
+
+
+        @Setup(Level.Trial)
+        public void setUp(WorkflowContextState state)
+        {
+            this.nextId.set(state.maxId + DELETE_SPAN + 1);
+        }
+    }
+
+
+    /**
+     * A chunk of rows inserted before each delete. Each thread reuses one
+     * range of ids just above the synthetic rows, so the ids stay small
+     * however long the run (the id column is a 32 bit INT).
+     */
+    @State(Scope.Thread)
+    public static class DeleteState
+    {
+        private static final AtomicInteger nextRange = new AtomicInteger();
+
+        long       firstId;
+
+        List<Long> lstId;
+
+
+        @Setup(Level.Invocation)
+        public void setUp(WorkflowContextState state)
+        {
+            // The range is taken by the first invocation of the thread.
+            if (this.lstId == null)
+            {
+                allocate(state);
+            }
+
+            // Clear any rows a failed delete left behind, then refill the range.
+            state.jdbcTemplate.update("DELETE FROM workflow WHERE id BETWEEN ? AND ?", this.firstId,
+                            this.firstId + DELETE_CHUNK - 1);
+
+            state.insert(this.firstId, DELETE_CHUNK);
+        }
+
+
+        private void allocate(WorkflowContextState state)
+        {
+            this.firstId = state.maxId + 1 + (long) nextRange.getAndIncrement() * DELETE_CHUNK;
+
+            if (this.firstId + DELETE_CHUNK > state.maxId + DELETE_SPAN)
+            {
+                throw new IllegalStateException("No delete id range left for another thread");
+            }
+
+            this.lstId = new ArrayList<>(DELETE_CHUNK);
+
+            for (long id = this.firstId; id < this.firstId + DELETE_CHUNK; id++)
+            {
+                this.lstId.add(id);
+            }
+        }
+    }
+}